@@ -0,0 +1,153 @@
+import benchmarks.Workload;
+import benchmarks.WorkloadFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Prepares the inputs of the benchmarks in package benchmarks, see {@link WorkloadFactory}.
+ * All the inputs are random with a fixed seed, so every run measures the same systems.
+ */
+public class BenchmarkWorkloads implements WorkloadFactory {
+
+    public static final double EPSILON = 1e-6;
+    public static final int ITERATIONS_LIMIT = 100000;
+
+    @Override
+    public Workload solve(String solver, int n, double density, double condition) {
+        final Solver s = solver(solver);
+        final LinearEquationsSystem system = system(n, density, condition);
+        return () -> s.solve(system, EPSILON);
+    }
+
+    @Override
+    public Workload matrix(String operation, int n) {
+        final Matrix a = random(n, 1);
+        final Matrix b = random(n, 2);
+        switch (operation) {
+            case "multiply":
+                return () -> a.multiply(b);
+            case "determinant":
+                return () -> a.determinant();
+            case "parse":
+                final String text = format(a);
+                return () -> Matrix.parse(text);
+            case "market":
+                final String file = market(a);
+                return () -> {
+                    try {
+                        return MatrixMarket.read(new StringReader(file));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation + ".");
+        }
+    }
+
+    private static Solver solver(String name) {
+        switch (name) {
+            case "Gauss":
+                return new GaussSolver();
+            case "Jacobi":
+                return new JacobiSolver(0.9, ITERATIONS_LIMIT);
+            case "Seidel":
+                return new SeidelSolver(ITERATIONS_LIMIT);
+            case "SOR":
+                return new SorSolver(ITERATIONS_LIMIT);
+            case "Gradient":
+                return new GradientSolver(ITERATIONS_LIMIT);
+            case "Mixed":
+                return new MixedPrecisionSolver();
+            default:
+                throw new IllegalArgumentException("Unknown solver " + name + ".");
+        }
+    }
+
+    /**
+     * Builds a symmetric diagonally dominant system, so that all the solvers converge.
+     * The off-diagonal items are random and negative, with their absolute sum s_i about 1/2 per row.
+     * The diagonal is only weakly dominant, max(s_i (1 + 1/condition), 1/2), so both the condition number
+     * and the spectral radius of the Jacobi iteration matrix, up to condition / (condition + 1), grow
+     * with condition: it sets the number of sweeps of Jacobi, Seidel and SOR methods as well as the error
+     * growth of the direct ones. The condition number is of the order of condition.
+     *
+     * @param density Share of stored off-diagonal items, 1 for a dense matrix.
+     * @return System with solution (1, 1, ..., 1).
+     */
+    static LinearEquationsSystem system(int n, double density, double condition) {
+        Random random = new Random(n);
+        double scale = 1 / Math.max(1, density * n);
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(n, n);
+        double[] rowSums = new double[n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = i + 1; j < n; ++j) {
+                if (random.nextDouble() < density) {
+                    double value = -random.nextDouble() * scale;
+                    builder.add(i, j, value);
+                    builder.add(j, i, value);
+                    rowSums[i] += Math.abs(value);
+                    rowSums[j] += Math.abs(value);
+                }
+            }
+        }
+        for (int i = 0; i < n; ++i) {
+            builder.add(i, i, Math.max(rowSums[i] * (1 + 1 / condition), 0.5));
+        }
+        SparseMatrix a = builder.build();
+        double[] ones = new double[n];
+        Arrays.fill(ones, 1);
+        Vector b = a.multiply(new Vector(ones));
+        return new LinearEquationsSystem(density >= 1 ? a.toDense() : a, b);
+    }
+
+    static Matrix random(int n, long seed) {
+        Random random = new Random(seed);
+        double[][] components = new double[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                components[i][j] = random.nextDouble() * 2 - 1;
+            }
+        }
+        return new Matrix(components);
+    }
+
+    /**
+     * @return Matrix in the format of {@link Matrix#parse}: {a11, a12}, {a21, a22}
+     */
+    static String format(Matrix a) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < a.getHeight(); ++i) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append('{');
+            for (int j = 0; j < a.getWidth(); ++j) {
+                if (j > 0) {
+                    result.append(", ");
+                }
+                result.append(a.get(i, j));
+            }
+            result.append('}');
+        }
+        return result.toString();
+    }
+
+    /**
+     * @return Matrix in Matrix Market array format.
+     */
+    static String market(Matrix a) {
+        StringWriter result = new StringWriter();
+        try {
+            MatrixMarket.write(result, a);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result.toString();
+    }
+}
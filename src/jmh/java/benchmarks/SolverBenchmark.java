@@ -0,0 +1,51 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of a complete solve, including the factorization or all the iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({"Gauss", "Jacobi", "Seidel", "SOR", "Gradient", "Mixed"})
+    public String solver;
+
+    @Param({"100", "500"})
+    public int n;
+
+    @Param({"1", "0.02"})
+    public double density;
+
+    @Param({"10", "100"})
+    public double condition;
+
+    private Workload workload;
+
+    @Setup
+    public void setUp() {
+        workload = WorkloadFactory.load().solve(solver, n, density, condition);
+    }
+
+    @Benchmark
+    public Object solve() {
+        return workload.run();
+    }
+}
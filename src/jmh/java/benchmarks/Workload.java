@@ -0,0 +1,15 @@
+package benchmarks;
+
+/**
+ * One benchmarked operation with its input prepared in advance.
+ */
+public interface Workload {
+
+    /**
+     * Runs the operation once.
+     *
+     * @return Its result, for the benchmark to consume.
+     */
+    public abstract Object run();
+
+}
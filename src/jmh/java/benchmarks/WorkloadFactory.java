@@ -0,0 +1,38 @@
+package benchmarks;
+
+/**
+ * Prepares {@link Workload}s.
+ * <p>
+ * JMH does not accept benchmarks in the default package, and classes of a named package cannot refer
+ * to the default one, where the library is. So the benchmarks are in this package and get their
+ * workloads from BenchmarkWorkloads of the default package, loaded by name once per trial.
+ * The measured calls go through {@link Workload#run()} without reflection.
+ */
+public interface WorkloadFactory {
+
+    public static final String IMPLEMENTATION = "BenchmarkWorkloads";
+
+    /**
+     * @param solver    Solver name: Gauss, Jacobi, Seidel, SOR, Gradient or Mixed.
+     * @param n         Number of unknowns.
+     * @param density   Share of stored items off the diagonal, 1 for a dense matrix.
+     * @param condition About the condition number of the matrix.
+     * @return Workload solving a system with the solver.
+     */
+    public abstract Workload solve(String solver, int n, double density, double condition);
+
+    /**
+     * @param operation Operation name: multiply, determinant, parse or market.
+     * @param n         Size of the square matrices.
+     * @return Workload running the operation on random matrices.
+     */
+    public abstract Workload matrix(String operation, int n);
+
+    public static WorkloadFactory load() {
+        try {
+            return (WorkloadFactory) Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot load " + IMPLEMENTATION + ".", e);
+        }
+    }
+}
@@ -0,0 +1,466 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Chooses the method for every system from cheap checks of its matrix, see {@link #analyze}.
+ * <p>
+ * Prepared systems and {@link OffHeapMatrix} systems go to {@link GaussSolver}. Stored matrices
+ * up to DIRECT_LIMIT unknowns, dense ones up to DENSE_DIRECT_LIMIT, are solved directly: by
+ * {@link CholeskySolver} if they look symmetric positive definite, by {@link GaussSolver} otherwise.
+ * Larger sparse systems which look symmetric positive definite and have bandwidth up to BAND_LIMIT
+ * are solved by banded Cholesky decomposition, in O(n p^2) for bandwidth p. The other larger systems
+ * are solved iteratively: symmetric ones with positive diagonal by conjugate gradients, diagonally
+ * dominant ones by {@link SorSolver}, the rest by BiCGSTAB, with a preconditioner that fits the matrix.
+ * <p>
+ * The checks cannot prove positive definiteness, so with the fallback on, a failed method is followed
+ * by the next one of the chain: Cholesky by Gauss or by conjugate gradients, conjugate gradients and SOR
+ * by BiCGSTAB, BiCGSTAB by GMRES, and iterative methods by Gauss, if the matrix is small enough.
+ * {@link #solveWithReport} tells what was found and which methods were tried. The listener gets
+ * the events of every attempt.
+ */
+public class AutoSolver implements Solver {
+
+    /**
+     * Maximal number of unknowns of a sparse matrix to solve directly.
+     */
+    public static final int DIRECT_LIMIT = 1000;
+
+    /**
+     * Maximal number of unknowns of a dense matrix to solve directly.
+     */
+    public static final int DENSE_DIRECT_LIMIT = 4000;
+
+    /**
+     * Maximal bandwidth of a larger sparse matrix to solve by banded Cholesky decomposition.
+     */
+    public static final int BAND_LIMIT = 64;
+
+    public static final int DEFAULT_ITERATIONS_LIMIT = 10000;
+
+    /**
+     * Relative difference of a_i_j and a_j_i which is considered symmetric.
+     */
+    public static final double SYMMETRY_TOLERANCE = 1e-12;
+
+    public enum Route {
+        GAUSS, CHOLESKY, CONJUGATE_GRADIENT, SOR, BICGSTAB, GMRES
+    }
+
+    /**
+     * Properties of a matrix found by {@link #analyze}.
+     */
+    public static class Analysis {
+
+        public final int dimensions;
+
+        /**
+         * Whether the matrix is a {@link Matrix} or a {@link SparseMatrix}, not a matrix-free operator.
+         */
+        public final boolean stored;
+        public final boolean dense;
+
+        /**
+         * Number of stored items, -1 for a matrix-free operator.
+         */
+        public final long nonZeros;
+
+        /**
+         * max |i - j| of the stored items, -1 for a matrix-free operator.
+         */
+        public final int bandwidth;
+        public final boolean symmetric;
+        public final boolean positiveDiagonal;
+        public final boolean zeroFreeDiagonal;
+
+        /**
+         * Strict diagonal dominance by rows, false if unknown.
+         */
+        public final boolean diagonallyDominant;
+
+        Analysis(int dimensions, boolean stored, boolean dense, long nonZeros, int bandwidth, boolean symmetric,
+                 boolean positiveDiagonal, boolean zeroFreeDiagonal, boolean diagonallyDominant) {
+            this.dimensions = dimensions;
+            this.stored = stored;
+            this.dense = dense;
+            this.nonZeros = nonZeros;
+            this.bandwidth = bandwidth;
+            this.symmetric = symmetric;
+            this.positiveDiagonal = positiveDiagonal;
+            this.zeroFreeDiagonal = zeroFreeDiagonal;
+            this.diagonallyDominant = diagonallyDominant;
+        }
+
+        /**
+         * Symmetric with positive diagonal: necessary for positive definiteness, not sufficient.
+         */
+        public boolean isPositiveDefiniteCandidate() {
+            return symmetric && positiveDiagonal;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n = %d, %s, nnz = %d, bandwidth = %d%s%s%s", dimensions,
+                    dense ? "dense" : stored ? "sparse" : "matrix-free", nonZeros, bandwidth,
+                    symmetric ? ", symmetric" : "", positiveDiagonal ? ", positive diagonal" : "",
+                    diagonallyDominant ? ", diagonally dominant" : "");
+        }
+    }
+
+    /**
+     * One method tried on a system.
+     */
+    public static class Attempt {
+
+        public final Route route;
+        public final SolverListener.Outcome outcome;
+        public final int iterations;
+        public final long nanos;
+
+        Attempt(Route route, SolverListener.Outcome outcome, int iterations, long nanos) {
+            this.route = route;
+            this.outcome = outcome;
+            this.iterations = iterations;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %s in %d iterations, %.3f ms", route, outcome, iterations, nanos / 1e6);
+        }
+    }
+
+    /**
+     * How a system was solved.
+     */
+    public static class Report {
+
+        /**
+         * Properties of the matrix, null for prepared and off-heap systems, which are not analyzed.
+         */
+        public final Analysis analysis;
+
+        /**
+         * Methods tried, in order; the last one succeeded if the solution is not null.
+         */
+        public final List<Attempt> attempts;
+        public final Solution solution;
+
+        Report(Analysis analysis, List<Attempt> attempts, Solution solution) {
+            this.analysis = analysis;
+            this.attempts = Collections.unmodifiableList(attempts);
+            this.solution = solution;
+        }
+
+        /**
+         * @return Method which solved the system, null if all of them failed.
+         */
+        public Route getRoute() {
+            return solution == null ? null : attempts.get(attempts.size() - 1).route;
+        }
+
+        @Override
+        public String toString() {
+            return (analysis == null ? "" : analysis + "; ") + attempts;
+        }
+    }
+
+    public final int iterationsLimit;
+    public final boolean fallback;
+
+    public AutoSolver() {
+        this(DEFAULT_ITERATIONS_LIMIT, true);
+    }
+
+    /**
+     * @param iterationsLimit Maximal number of iterations of every iterative method.
+     * @param fallback        Whether to try the next method of the chain when one fails.
+     */
+    public AutoSolver(int iterationsLimit, boolean fallback) {
+        this.iterationsLimit = iterationsLimit;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Solution solve(LinearEquationsSystem s, double epsilon, SolverListener listener) {
+        return solveWithReport(s, epsilon, listener).solution;
+    }
+
+    @Override
+    public Solution solve(LinearEquationsSystem s, Vector x, double epsilon, SolverListener listener) {
+        SolveTracker.checkGuess(s, x);
+        return solveWithReport(s, x, epsilon, listener).solution;
+    }
+
+    public Report solveWithReport(LinearEquationsSystem s, double epsilon) {
+        return solveWithReport(s, epsilon, SolverListener.NONE);
+    }
+
+    public Report solveWithReport(LinearEquationsSystem s, double epsilon, SolverListener listener) {
+        return solveWithReport(s, null, epsilon, listener);
+    }
+
+    /**
+     * Solves the system, trying the methods of the chain until one succeeds.
+     *
+     * @param x Initial approximation for every method of the chain, which receives the solution,
+     *          or null to start from zero.
+     */
+    public Report solveWithReport(LinearEquationsSystem s, Vector x, double epsilon, SolverListener listener) {
+        if (s.a.getHeight() != s.a.getWidth())
+            throw new IllegalArgumentException("Only square systems can be solved.");
+        Analysis analysis = s.isPrepared() || s.a instanceof OffHeapMatrix ? null : analyze(s.a);
+        List<Route> chain = plan(s, analysis);
+        if (!fallback) {
+            chain = chain.subList(0, 1);
+        }
+        // a failed attempt leaves its last approximation in x, the next one starts from the guess again
+        Vector guess = x != null && chain.size() > 1 ? new Vector(x.getComponents()) : null;
+        List<Attempt> attempts = new ArrayList<>();
+        for (Route route : chain) {
+            AttemptListener attempt = new AttemptListener(listener);
+            long start = System.nanoTime();
+            Solution solution;
+            if (x == null) {
+                solution = solver(route, analysis).solve(s, epsilon, attempt);
+            } else {
+                if (!attempts.isEmpty()) {
+                    guess.copyInto(x);
+                }
+                solution = solver(route, analysis).solve(s, x, epsilon, attempt);
+            }
+            attempts.add(new Attempt(route, attempt.outcome, attempt.iterations, System.nanoTime() - start));
+            if (solution != null)
+                return new Report(analysis, attempts, solution);
+        }
+        return new Report(analysis, attempts, null);
+    }
+
+    /**
+     * Chooses the methods to try, in order.
+     *
+     * @param analysis Properties of the matrix, null for prepared and off-heap systems.
+     */
+    protected List<Route> plan(LinearEquationsSystem s, Analysis analysis) {
+        if (analysis == null)
+            return Collections.singletonList(Route.GAUSS);
+        int n = analysis.dimensions;
+        boolean direct = analysis.stored && (n <= DIRECT_LIMIT || analysis.dense && n <= DENSE_DIRECT_LIMIT);
+        List<Route> result = new ArrayList<>();
+        if (direct) {
+            if (analysis.isPositiveDefiniteCandidate()) {
+                result.add(Route.CHOLESKY);
+            }
+            result.add(Route.GAUSS);
+            return result;
+        }
+        if (analysis.isPositiveDefiniteCandidate() && analysis.stored && !analysis.dense
+                && analysis.bandwidth <= BAND_LIMIT) {
+            result.add(Route.CHOLESKY);
+        }
+        if (analysis.isPositiveDefiniteCandidate()) {
+            result.add(Route.CONJUGATE_GRADIENT);
+        } else if (analysis.diagonallyDominant) {
+            result.add(Route.SOR);
+        }
+        result.addAll(Arrays.asList(Route.BICGSTAB, Route.GMRES));
+        if (analysis.stored && n <= DENSE_DIRECT_LIMIT) {
+            result.add(Route.GAUSS);
+        }
+        return result;
+    }
+
+    /**
+     * Makes the solver of a method, with a preconditioner fitting the matrix.
+     */
+    protected Solver solver(Route route, Analysis analysis) {
+        switch (route) {
+            case GAUSS:
+                return new GaussSolver();
+            case CHOLESKY:
+                return new CholeskySolver();
+            case SOR:
+                return new SorSolver(iterationsLimit);
+            case CONJUGATE_GRADIENT:
+                if (analysis.stored && !analysis.dense)
+                    return new ConjugateGradientSolver(iterationsLimit, SsorPreconditioner::new);
+                return new ConjugateGradientSolver(iterationsLimit, JacobiPreconditioner::new);
+            case BICGSTAB:
+                return new BiCgStabSolver(iterationsLimit, krylovPreconditioner(analysis));
+            case GMRES:
+                return new GmresSolver(iterationsLimit, GmresSolver.DEFAULT_RESTART, krylovPreconditioner(analysis));
+            default:
+                throw new IllegalArgumentException("Unknown route " + route + ".");
+        }
+    }
+
+    /**
+     * ILU(0) for sparse matrices; Jacobi for dense and matrix-free ones, whose ILU(0) would be
+     * a full LU or would need the operator as a matrix.
+     */
+    private static Preconditioner.Factory krylovPreconditioner(Analysis analysis) {
+        if (!analysis.zeroFreeDiagonal)
+            return null;
+        return analysis.stored && !analysis.dense ? Ilu0Preconditioner::new : JacobiPreconditioner::new;
+    }
+
+    /**
+     * Checks the properties of a square matrix. Stored matrices are scanned once, in O(nnz) for sparse
+     * ones and O(n^2) for dense ones. For a matrix-free operator the symmetry is tested with one pair
+     * of random vectors, (y, Ax) = (x, Ay), and the diagonal is taken if the operator provides it.
+     */
+    public static Analysis analyze(LinearOperator a) {
+        int n = a.getHeight();
+        if (a instanceof SparseMatrix)
+            return analyze((SparseMatrix) a);
+        if (a instanceof Matrix)
+            return analyze((Matrix) a);
+        boolean symmetric = false;
+        if (n == 1) {
+            symmetric = true;
+        } else {
+            Random random = new Random(n);
+            Vector x = Vector.zero(n);
+            Vector y = Vector.zero(n);
+            for (int i = 0; i < n; ++i) {
+                x.set(i, random.nextDouble() - 0.5);
+                y.set(i, random.nextDouble() - 0.5);
+            }
+            Vector ax = a.multiply(x);
+            Vector ay = a.multiply(y);
+            double left = y.dot(ax);
+            double right = x.dot(ay);
+            symmetric = Math.abs(left - right) <= 1e-10 * (y.norm2() * ax.norm2() + x.norm2() * ay.norm2());
+        }
+        boolean positive = false;
+        boolean zeroFree = false;
+        if (a.hasDiagonal()) {
+            positive = true;
+            zeroFree = true;
+            for (double d : a.getDiagonal()) {
+                positive &= d > 0;
+                zeroFree &= d != 0;
+            }
+        }
+        return new Analysis(n, false, false, -1, -1, symmetric, positive, zeroFree, false);
+    }
+
+    private static Analysis analyze(SparseMatrix a) {
+        int n = a.getHeight();
+        int bandwidth = 0;
+        boolean symmetric = true;
+        boolean dominant = true;
+        boolean positive = true;
+        boolean zeroFree = true;
+        for (int i = 0; i < n; ++i) {
+            double diagonal = 0;
+            double offDiagonal = 0;
+            for (int k = a.rowPointers[i]; k < a.rowPointers[i + 1]; ++k) {
+                int j = a.columns[k];
+                double value = a.values[k];
+                if (j == i) {
+                    diagonal = value;
+                    continue;
+                }
+                offDiagonal += Math.abs(value);
+                bandwidth = Math.max(bandwidth, Math.abs(i - j));
+                if (symmetric && j < i) {
+                    symmetric = isSymmetric(value, a.get(j, i));
+                }
+            }
+            if (symmetric) {
+                // items above the diagonal without a pair below it
+                for (int k = a.rowPointers[i]; k < a.rowPointers[i + 1] && symmetric; ++k) {
+                    if (a.columns[k] > i && a.get(a.columns[k], i) == 0) {
+                        symmetric = false;
+                    }
+                }
+            }
+            positive &= diagonal > 0;
+            zeroFree &= diagonal != 0;
+            dominant &= Math.abs(diagonal) > offDiagonal;
+        }
+        return new Analysis(n, true, false, a.getNonZeros(), bandwidth, symmetric, positive, zeroFree, dominant);
+    }
+
+    private static Analysis analyze(Matrix a) {
+        int n = a.getHeight();
+        long nonZeros = 0;
+        int bandwidth = 0;
+        boolean symmetric = true;
+        boolean dominant = true;
+        boolean positive = true;
+        boolean zeroFree = true;
+        for (int i = 0; i < n; ++i) {
+            double offDiagonal = 0;
+            for (int j = 0; j < n; ++j) {
+                double value = a.get(i, j);
+                if (value == 0) {
+                    continue;
+                }
+                ++nonZeros;
+                if (j != i) {
+                    offDiagonal += Math.abs(value);
+                    bandwidth = Math.max(bandwidth, Math.abs(i - j));
+                }
+                if (symmetric && j < i) {
+                    symmetric = isSymmetric(value, a.get(j, i));
+                } else if (symmetric && j > i && a.get(j, i) == 0) {
+                    symmetric = false;
+                }
+            }
+            double diagonal = a.get(i, i);
+            positive &= diagonal > 0;
+            zeroFree &= diagonal != 0;
+            dominant &= Math.abs(diagonal) > offDiagonal;
+        }
+        return new Analysis(n, true, true, nonZeros, bandwidth, symmetric, positive, zeroFree, dominant);
+    }
+
+    private static boolean isSymmetric(double a, double b) {
+        return Math.abs(a - b) <= SYMMETRY_TOLERANCE * Math.max(Math.abs(a), Math.abs(b));
+    }
+
+    /**
+     * Passes the events to the listener of the solve and keeps the outcome of an attempt.
+     */
+    private static class AttemptListener implements SolverListener {
+
+        private final SolverListener listener;
+        private Outcome outcome;
+        private int iterations;
+
+        AttemptListener(SolverListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onStart(Solver solver, LinearEquationsSystem s) {
+            listener.onStart(solver, s);
+        }
+
+        @Override
+        public void onPhase(Phase phase, long nanos) {
+            listener.onPhase(phase, nanos);
+        }
+
+        @Override
+        public int getIterationInterval() {
+            return listener.getIterationInterval();
+        }
+
+        @Override
+        public void onIteration(int iteration, double norm) {
+            listener.onIteration(iteration, norm);
+        }
+
+        @Override
+        public void onFinish(Outcome outcome, int iterations, long products) {
+            this.outcome = outcome;
+            this.iterations = iterations;
+            listener.onFinish(outcome, iterations, products);
+        }
+    }
+}
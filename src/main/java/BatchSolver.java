@@ -0,0 +1,210 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Solves many independent systems with one solver concurrently.
+ * <p>
+ * The systems are run by a fixed number of runners submitted to the executor, which may be
+ * a {@link ForkJoinPool} (the common pool by default), a thread pool or an executor of virtual threads.
+ * Every runner takes the next system when it is done with the previous one, so the load is balanced
+ * however uneven the systems are. The systems are ordered by their estimated cost: half of the runners
+ * take them from the most expensive end, the others from the cheapest one, and a runner whose end
+ * is exhausted goes on with the other end. So a few huge systems occupy at most half of the runners
+ * while the small ones keep flowing, and the huge ones still start early.
+ * <p>
+ * The solver is shared by the runners, so it should not keep state between solves; none of the solvers
+ * here does. An exception thrown by the solver fails the result of its system only.
+ */
+public class BatchSolver {
+
+    /**
+     * Result of one system of a batch.
+     */
+    public static class Result {
+
+        /**
+         * Position of the system in the batch.
+         */
+        public final int index;
+        public final LinearEquationsSystem system;
+
+        /**
+         * The solution, null if the solver failed or threw an exception.
+         */
+        public final Solution solution;
+
+        /**
+         * Exception thrown by the solver, or null.
+         */
+        public final Throwable error;
+
+        Result(int index, LinearEquationsSystem system, Solution solution, Throwable error) {
+            this.index = index;
+            this.system = system;
+            this.solution = solution;
+            this.error = error;
+        }
+    }
+
+    public final Solver solver;
+    public final double epsilon;
+    public final int parallelism;
+    private final Executor executor;
+
+    /**
+     * @param solver      Solver for all the systems.
+     * @param epsilon     Precision for all the systems.
+     * @param executor    Executor to run the runners on.
+     * @param parallelism Number of runners, that is, of systems solved at once.
+     */
+    public BatchSolver(Solver solver, double epsilon, Executor executor, int parallelism) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("Parallelism should be positive.");
+        this.solver = solver;
+        this.epsilon = epsilon;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs the systems in the common pool, as many at once as it has threads.
+     */
+    public BatchSolver(Solver solver, double epsilon) {
+        this(solver, epsilon, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Starts solving the systems.
+     *
+     * @return Futures of the solutions in the order of the systems; a future of a failed solve
+     * completes with null, one whose solver threw completes exceptionally.
+     */
+    public List<CompletableFuture<Solution>> submit(Collection<LinearEquationsSystem> systems) {
+        final LinearEquationsSystem[] jobs = systems.toArray(new LinearEquationsSystem[systems.size()]);
+        List<CompletableFuture<Solution>> futures = new ArrayList<>(jobs.length);
+        for (int i = 0; i < jobs.length; ++i) {
+            futures.add(new CompletableFuture<>());
+        }
+        long[] costs = new long[jobs.length];
+        for (int i = 0; i < jobs.length; ++i) {
+            costs[i] = estimateCost(jobs[i]);
+        }
+        final Schedule schedule = new Schedule(costs);
+        int runners = Math.min(parallelism, jobs.length);
+        for (int r = 0; r < runners; ++r) {
+            final boolean expensiveFirst = r % 2 == 0;
+            executor.execute(() -> {
+                int job;
+                while ((job = schedule.next(expensiveFirst)) >= 0) {
+                    try {
+                        futures.get(job).complete(solver.solve(jobs[job], epsilon));
+                    } catch (Throwable e) {
+                        futures.get(job).completeExceptionally(e);
+                    }
+                }
+            });
+        }
+        return Collections.unmodifiableList(futures);
+    }
+
+    public List<CompletableFuture<Solution>> submit(Stream<LinearEquationsSystem> systems) {
+        return submit(systems.collect(Collectors.toList()));
+    }
+
+    /**
+     * Solves the systems and waits for all of them.
+     *
+     * @return Solutions in the order of the systems, null for failed solves.
+     * @throws java.util.concurrent.CompletionException if the solver threw for some system.
+     */
+    public List<Solution> solveAll(Collection<LinearEquationsSystem> systems) {
+        return submit(systems).stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    public List<Solution> solveAll(Stream<LinearEquationsSystem> systems) {
+        return solveAll(systems.collect(Collectors.toList()));
+    }
+
+    /**
+     * Solves the systems, giving out the results as they are ready.
+     *
+     * @return Stream of the results in the order of completion, which blocks until the next one is ready.
+     */
+    public Stream<Result> solveAsCompleted(Collection<LinearEquationsSystem> systems) {
+        final List<LinearEquationsSystem> jobs = new ArrayList<>(systems);
+        final BlockingQueue<Result> results = new LinkedBlockingQueue<>();
+        List<CompletableFuture<Solution>> futures = submit(jobs);
+        for (int i = 0; i < futures.size(); ++i) {
+            final int index = i;
+            futures.get(i).whenComplete((solution, error) ->
+                    results.add(new Result(index, jobs.get(index), solution, error)));
+        }
+        return IntStream.range(0, jobs.size()).mapToObj(i -> {
+            try {
+                return results.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a result.", e);
+            }
+        });
+    }
+
+    public Stream<Result> solveAsCompleted(Stream<LinearEquationsSystem> systems) {
+        return solveAsCompleted(systems.collect(Collectors.toList()));
+    }
+
+    /**
+     * Estimates the cost of solving a system, only to order the systems.
+     *
+     * @return Number of stored items of the operator, times n for Gauss method without a factorization.
+     */
+    protected long estimateCost(LinearEquationsSystem s) {
+        long n = s.a.getHeight();
+        long items = s.a instanceof SparseMatrix ? ((SparseMatrix) s.a).getNonZeros() : n * s.a.getWidth();
+        return solver instanceof GaussSolver && !s.isPrepared() ? items * n : items;
+    }
+
+    /**
+     * Systems ordered by cost, taken from both ends.
+     */
+    static class Schedule {
+
+        private final Integer[] order;
+        private int cheap;
+        private int expensive;
+
+        /**
+         * @param costs Estimated costs of the systems.
+         */
+        Schedule(long[] costs) {
+            order = new Integer[costs.length];
+            for (int i = 0; i < costs.length; ++i) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingLong(i -> costs[i]));
+            this.cheap = 0;
+            this.expensive = order.length - 1;
+        }
+
+        /**
+         * @return Index of the next system, -1 if there are no more.
+         */
+        synchronized int next(boolean expensiveFirst) {
+            if (cheap > expensive)
+                return -1;
+            return expensiveFirst ? order[expensive--] : order[cheap++];
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Solves linear equations systems with biconjugate gradient stabilized method, BiCGSTAB.
+ * <p>
+ * Works for nonsymmetric matrices with short recurrences: every iteration costs two products
+ * by the matrix and a fixed amount of memory, unlike GMRES, whose basis grows with iterations.
+ * All the work vectors are allocated once per solve. Breakdown (rho = 0 or omega = 0) makes
+ * the solver return null. A preconditioner is applied from the right.
+ */
+public class BiCgStabSolver implements Solver {
+
+    public final int iterationsLimit;
+    public final Preconditioner.Factory preconditioner;
+
+    public BiCgStabSolver(int iterationsLimit) {
+        this(iterationsLimit, null);
+    }
+
+    public BiCgStabSolver(int iterationsLimit, Preconditioner.Factory preconditioner) {
+        this.iterationsLimit = iterationsLimit;
+        this.preconditioner = preconditioner;
+    }
+
+    @Override
+    public Solution solve(LinearEquationsSystem s, double epsilon, SolverListener listener) {
+        return solve(s, Vector.zero(s.a.getWidth()), epsilon, listener);
+    }
+
+    @Override
+    public Solution solve(LinearEquationsSystem s, Vector x, double epsilon, SolverListener listener) {
+        SolveTracker.checkGuess(s, x);
+        SolveTracker tracker = new SolveTracker(listener, this, s);
+        int n = s.b.getDimensions();
+        Preconditioner m = preconditioner == null ? null : preconditioner.create(s.a);
+        Vector r = new Vector(s.b.getComponents());
+        if (!x.isZero()) {
+            r.axpy(-1, s.a.multiply(x));
+            tracker.products++;
+        }
+        Vector rHat = new Vector(r.getComponents());
+        Vector p = Vector.zero(n);
+        Vector v = Vector.zero(n);
+        Vector t = Vector.zero(n);
+        Vector pHat = m == null ? p : Vector.zero(n);
+        Vector sHat = m == null ? r : Vector.zero(n);
+        tracker.setupDone();
+
+        double rho = 1;
+        double alpha = 1;
+        double omega = 1;
+        int iterations = 0;
+        while (Math.sqrt(r.product(r)) > epsilon) {
+            if (++iterations > iterationsLimit)
+                return tracker.failed(SolverListener.Outcome.ITERATIONS_LIMIT, iterations);
+            double nextRho = rHat.product(r);
+            if (nextRho == 0 || omega == 0)
+                return tracker.failed(SolverListener.Outcome.BREAKDOWN, iterations);
+            double beta = nextRho / rho * (alpha / omega);
+            rho = nextRho;
+            for (int i = 0; i < n; ++i) {
+                p.set(i, r.get(i) + beta * (p.get(i) - omega * v.get(i)));
+            }
+            if (m != null) {
+                m.apply(p, pHat);
+            }
+            s.a.apply(pHat, v);
+            tracker.products++;
+            alpha = rho / rHat.product(v);
+            // r becomes s = r - alpha v
+            for (int i = 0; i < n; ++i) {
+                r.set(i, r.get(i) - alpha * v.get(i));
+                x.set(i, x.get(i) + alpha * pHat.get(i));
+            }
+            double norm = Math.sqrt(r.product(r));
+            if (!(norm > epsilon)) {
+                tracker.iteration(iterations, norm);
+                break;
+            }
+            if (m != null) {
+                m.apply(r, sHat);
+            }
+            s.a.apply(sHat, t);
+            tracker.products++;
+            omega = t.product(r) / t.product(t);
+            for (int i = 0; i < n; ++i) {
+                x.set(i, x.get(i) + omega * sHat.get(i));
+                r.set(i, r.get(i) - omega * t.get(i));
+            }
+            if (Double.isNaN(omega))
+                return tracker.failed(SolverListener.Outcome.DIVERGED, iterations);
+            if (tracker.isSampled(iterations)) {
+                tracker.iteration(iterations, Math.sqrt(r.product(r)));
+            }
+        }
+        // Check the true residual, the updated one may drift from it.
+        Vector residual = s.a.multiply(x).subtract(s.b);
+        tracker.products++;
+        if (Double.isNaN(residual.norm()))
+            return tracker.failed(SolverListener.Outcome.DIVERGED, iterations);
+        if (!(residual.norm() <= epsilon))
+            return tracker.failed(SolverListener.Outcome.INACCURATE, iterations);
+        return tracker.converged(iterations, x);
+    }
+}
@@ -0,0 +1,376 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes matrices, vectors and systems in a binary format through memory-mapped files,
+ * so that loading is a bulk copy from the page cache without any parsing.
+ * <p>
+ * A file is a block: a header of HEADER_SIZE bytes and the data. All numbers are little-endian.
+ * <pre>
+ * 0   int   magic "LESB"
+ * 4   short version
+ * 6   byte  kind: 1 dense matrix, 2 CSR matrix, 3 vector, 4 system
+ * 7   byte  dtype of the values: 1 float64, 2 float32
+ * 8   long  height (dimensions of a vector)
+ * 16  long  width (1 for a vector)
+ * 24  long  number of stored items of a CSR matrix, 0 otherwise
+ * </pre>
+ * A dense matrix has height * width values row by row, a vector its components. A CSR matrix has
+ * height + 1 int32 row pointers, nnz int32 columns and nnz values, every array starting at a multiple
+ * of 8 bytes. A system is a header followed by the block of its matrix and the block of its right part.
+ * <p>
+ * The data are mapped in chunks, so files may be larger than 2 GiB, as far as the arrays fit.
+ */
+public final class BinaryFormat {
+
+    public static final int MAGIC = 0x4253454C; // "LESB" read as little-endian
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+
+    static final byte DENSE = 1;
+    static final byte SPARSE = 2;
+    static final byte VECTOR = 3;
+    static final byte SYSTEM = 4;
+
+    /**
+     * Items mapped at once, to keep every mapping under 2 GiB.
+     */
+    private static final int CHUNK = 1 << 27;
+
+    /**
+     * Type of the stored values.
+     */
+    public enum DataType {
+        FLOAT64(1, 8),
+        /**
+         * Halves the size of the file, but keeps only about 7 significant digits.
+         */
+        FLOAT32(2, 4);
+
+        final byte code;
+        final int size;
+
+        DataType(int code, int size) {
+            this.code = (byte) code;
+            this.size = size;
+        }
+
+        static DataType of(byte code) throws IOException {
+            for (DataType type : values()) {
+                if (type.code == code)
+                    return type;
+            }
+            throw new IOException("Unknown data type " + code + ".");
+        }
+    }
+
+    private BinaryFormat() {
+    }
+
+    public static void write(Path path, LinearOperator a) throws IOException {
+        write(path, a, DataType.FLOAT64);
+    }
+
+    /**
+     * Writes a matrix. A {@link SparseMatrix} is written in CSR layout, a {@link Matrix} densely,
+     * other operators are converted with {@link LinearOperator#toDense()}.
+     */
+    public static void write(Path path, LinearOperator a, DataType type) throws IOException {
+        try (FileChannel channel = create(path)) {
+            writeOperator(channel, 0, a, type);
+        }
+    }
+
+    public static void write(Path path, Vector v) throws IOException {
+        write(path, v, DataType.FLOAT64);
+    }
+
+    public static void write(Path path, Vector v, DataType type) throws IOException {
+        try (FileChannel channel = create(path)) {
+            writeVector(channel, 0, v, type);
+        }
+    }
+
+    public static void write(Path path, LinearEquationsSystem s) throws IOException {
+        write(path, s, DataType.FLOAT64);
+    }
+
+    /**
+     * Writes the matrix and the right part of a system. Its factorization is not written.
+     */
+    public static void write(Path path, LinearEquationsSystem s, DataType type) throws IOException {
+        try (FileChannel channel = create(path)) {
+            writeHeader(channel, 0, SYSTEM, type, s.a.getHeight(), s.a.getWidth(), 0);
+            long end = writeOperator(channel, HEADER_SIZE, s.a, type);
+            writeVector(channel, end, s.b, type);
+        }
+    }
+
+    /**
+     * Reads a matrix in the layout it was written: {@link Matrix} or {@link SparseMatrix}.
+     */
+    public static LinearOperator readOperator(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Block block = readBlock(channel, 0);
+            if (!(block.value instanceof LinearOperator))
+                throw new IOException(path + " does not contain a matrix.");
+            return (LinearOperator) block.value;
+        }
+    }
+
+    /**
+     * Reads a matrix as a dense one, whatever its layout in the file.
+     */
+    public static Matrix readMatrix(Path path) throws IOException {
+        return readOperator(path).toDense();
+    }
+
+    public static Vector readVector(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Block block = readBlock(channel, 0);
+            if (!(block.value instanceof Vector))
+                throw new IOException(path + " does not contain a vector.");
+            return (Vector) block.value;
+        }
+    }
+
+    public static LinearEquationsSystem readSystem(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Block block = readBlock(channel, 0);
+            if (!(block.value instanceof LinearEquationsSystem))
+                throw new IOException(path + " does not contain a system.");
+            return (LinearEquationsSystem) block.value;
+        }
+    }
+
+    private static FileChannel create(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static class Block {
+
+        final Object value;
+        final long end;
+
+        Block(Object value, long end) {
+            this.value = value;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Checks that the file is a dense float64 matrix, whose items can be mapped in place from HEADER_SIZE on.
+     *
+     * @return {height, width}
+     */
+    static int[] readDenseHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = readHeader(channel, 0);
+        if (header.get() != DENSE || DataType.of(header.get()) != DataType.FLOAT64)
+            throw new IOException("Not a dense matrix of float64.");
+        return new int[]{toSize(header.getLong()), toSize(header.getLong())};
+    }
+
+    static void writeDenseHeader(FileChannel channel, int height, int width) throws IOException {
+        writeHeader(channel, 0, DENSE, DataType.FLOAT64, height, width, 0);
+    }
+
+    /**
+     * @return Header after the version.
+     */
+    private static ByteBuffer readHeader(FileChannel channel, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, position + header.position()) < 0)
+                throw new IOException("Unexpected end of file in a header.");
+        }
+        header.flip();
+        if (header.getInt() != MAGIC)
+            throw new IOException("Not a binary matrix file.");
+        short version = header.getShort();
+        if (version != VERSION)
+            throw new IOException("Unsupported version " + version + ".");
+        return header;
+    }
+
+    private static Block readBlock(FileChannel channel, long position) throws IOException {
+        ByteBuffer header = readHeader(channel, position);
+        byte kind = header.get();
+        DataType type = DataType.of(header.get());
+        int height = toSize(header.getLong());
+        int width = toSize(header.getLong());
+        long nonZeros = header.getLong();
+        long data = position + HEADER_SIZE;
+        switch (kind) {
+            case DENSE: {
+                double[] values = new double[toSize((long) height * width)];
+                readValues(channel, data, type, values);
+                return new Block(new Matrix(height, width, values), data + (long) values.length * type.size);
+            }
+            case SPARSE: {
+                int[] rowPointers = new int[height + 1];
+                int[] columns = new int[toSize(nonZeros)];
+                double[] values = new double[columns.length];
+                long position2 = readInts(channel, data, rowPointers);
+                position2 = readInts(channel, position2, columns);
+                readValues(channel, position2, type, values);
+                if (rowPointers[0] != 0 || rowPointers[height] != columns.length)
+                    throw new IOException("Row pointers do not match the number of items.");
+                for (int i = 0; i < height; ++i) {
+                    if (rowPointers[i] > rowPointers[i + 1])
+                        throw new IOException("Row pointers decrease at row " + i + ".");
+                }
+                for (int k = 0; k < columns.length; ++k) {
+                    if (columns[k] < 0 || columns[k] >= width)
+                        throw new IOException("Column " + columns[k] + " of item " + k + " is out of range.");
+                }
+                return new Block(new SparseMatrix(height, width, rowPointers, columns, values),
+                        position2 + (long) values.length * type.size);
+            }
+            case VECTOR: {
+                double[] values = new double[height];
+                readValues(channel, data, type, values);
+                return new Block(new Vector(values), data + (long) height * type.size);
+            }
+            case SYSTEM: {
+                Block a = readBlock(channel, data);
+                Block b = readBlock(channel, align(a.end));
+                if (!(a.value instanceof LinearOperator) || !(b.value instanceof Vector))
+                    throw new IOException("A system should consist of a matrix and a vector.");
+                return new Block(new LinearEquationsSystem((LinearOperator) a.value, (Vector) b.value), b.end);
+            }
+            default:
+                throw new IOException("Unknown block kind " + kind + ".");
+        }
+    }
+
+    /**
+     * @return Position after the block.
+     */
+    private static long writeOperator(FileChannel channel, long position, LinearOperator operator, DataType type)
+            throws IOException {
+        if (operator instanceof SparseMatrix) {
+            SparseMatrix a = (SparseMatrix) operator;
+            int nonZeros = a.getNonZeros();
+            writeHeader(channel, position, SPARSE, type, a.getHeight(), a.getWidth(), nonZeros);
+            long next = writeInts(channel, position + HEADER_SIZE, a.rowPointers, a.getHeight() + 1);
+            next = writeInts(channel, next, a.columns, nonZeros);
+            writeValues(channel, next, type, a.values, 0, nonZeros);
+            return next + (long) nonZeros * type.size;
+        }
+        Matrix a = operator.toDense();
+        writeHeader(channel, position, DENSE, type, a.getHeight(), a.getWidth(), 0);
+        int count = a.getHeight() * a.getWidth();
+        boolean compact = a.offset == 0 && a.stride == a.getWidth();
+        writeValues(channel, position + HEADER_SIZE, type, compact ? a.data : a.toArray(), 0, count);
+        return position + HEADER_SIZE + (long) count * type.size;
+    }
+
+    private static long writeVector(FileChannel channel, long position, Vector v, DataType type) throws IOException {
+        position = align(position);
+        writeHeader(channel, position, VECTOR, type, v.getDimensions(), 1, 0);
+        if (v.stride == 1) {
+            writeValues(channel, position + HEADER_SIZE, type, v.data, v.offset, v.getDimensions());
+        } else {
+            writeValues(channel, position + HEADER_SIZE, type, v.getComponents(), 0, v.getDimensions());
+        }
+        return position + HEADER_SIZE + (long) v.getDimensions() * type.size;
+    }
+
+    private static void writeHeader(FileChannel channel, long position, byte kind, DataType type,
+                                    long height, long width, long nonZeros) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putShort(VERSION).put(kind).put(type.code)
+                .putLong(height).putLong(width).putLong(nonZeros);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, position + header.position());
+        }
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static int toSize(long size) throws IOException {
+        if (size < 0 || size > Integer.MAX_VALUE - 8)
+            throw new IOException("Size " + size + " does not fit in an array.");
+        return (int) size;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long size)
+            throws IOException {
+        MappedByteBuffer buffer = channel.map(mode, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static void readValues(FileChannel channel, long position, DataType type, double[] target)
+            throws IOException {
+        for (int done = 0; done < target.length; done += CHUNK) {
+            int part = Math.min(CHUNK, target.length - done);
+            MappedByteBuffer buffer = map(channel, FileChannel.MapMode.READ_ONLY,
+                    position + (long) done * type.size, (long) part * type.size);
+            if (type == DataType.FLOAT64) {
+                buffer.asDoubleBuffer().get(target, done, part);
+            } else {
+                FloatBuffer floats = buffer.asFloatBuffer();
+                for (int i = 0; i < part; ++i) {
+                    target[done + i] = floats.get(i);
+                }
+            }
+        }
+    }
+
+    private static void writeValues(FileChannel channel, long position, DataType type, double[] source,
+                                    int offset, int count) throws IOException {
+        for (int done = 0; done < count; done += CHUNK) {
+            int part = Math.min(CHUNK, count - done);
+            MappedByteBuffer buffer = map(channel, FileChannel.MapMode.READ_WRITE,
+                    position + (long) done * type.size, (long) part * type.size);
+            if (type == DataType.FLOAT64) {
+                DoubleBuffer doubles = buffer.asDoubleBuffer();
+                doubles.put(source, offset + done, part);
+            } else {
+                FloatBuffer floats = buffer.asFloatBuffer();
+                for (int i = 0; i < part; ++i) {
+                    floats.put(i, (float) source[offset + done + i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Aligned position after the ints.
+     */
+    private static long readInts(FileChannel channel, long position, int[] target) throws IOException {
+        for (int done = 0; done < target.length; done += CHUNK) {
+            int part = Math.min(CHUNK, target.length - done);
+            IntBuffer ints = map(channel, FileChannel.MapMode.READ_ONLY, position + (long) done * 4, (long) part * 4)
+                    .asIntBuffer();
+            ints.get(target, done, part);
+        }
+        return align(position + (long) target.length * 4);
+    }
+
+    /**
+     * @return Aligned position after the ints.
+     */
+    private static long writeInts(FileChannel channel, long position, int[] source, int count) throws IOException {
+        for (int done = 0; done < count; done += CHUNK) {
+            int part = Math.min(CHUNK, count - done);
+            IntBuffer ints = map(channel, FileChannel.MapMode.READ_WRITE, position + (long) done * 4, (long) part * 4)
+                    .asIntBuffer();
+            ints.put(source, done, part);
+        }
+        return align(position + (long) count * 4);
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Cholesky decomposition of a symmetric positive definite matrix, A = LL^T.
+ * <p>
+ * L is lower triangular with the same bandwidth p as A, since the decomposition fills nothing outside
+ * the band. Row i of L, items max(0, i - p)..i, is stored contiguously at l[(i + 1) p + j], so for
+ * a dense matrix (p = n - 1) the storage is n^2 items, and for a banded one n (p + 1). Only the lower
+ * triangle of A is read. Item L_i_j is computed from the dot product of the beginnings of rows i and j
+ * of L, so the decomposition costs n p^2 / 2 multiplications, n^3 / 6 for a dense matrix, half of LU,
+ * and needs no pivoting. If a pivot is not positive, A is not positive definite: the decomposition
+ * stops, and {@link #isPositiveDefinite()} is false.
+ */
+public class CholeskyDecomposition implements Factorization {
+
+    private final double[] l;
+    private final int n;
+    private final int bandwidth;
+    private final boolean positiveDefinite;
+
+    public CholeskyDecomposition(Matrix a) {
+        if (a.getHeight() != a.getWidth())
+            throw new IllegalArgumentException("Cholesky decomposition is only defined for square matrices.");
+        n = a.getHeight();
+        bandwidth = Math.max(n - 1, 0);
+        l = new double[n * (bandwidth + 1)];
+        for (int i = 0; i < n; ++i) {
+            System.arraycopy(a.data, a.offset + i * a.stride, l, (i + 1) * bandwidth, i + 1);
+        }
+        positiveDefinite = factor();
+    }
+
+    /**
+     * Decomposes a banded sparse matrix in O(n p^2) time and O(n p) memory.
+     *
+     * @param bandwidth Bandwidth p of A, the maximal |i - j| of its stored items.
+     */
+    public CholeskyDecomposition(SparseMatrix a, int bandwidth) {
+        if (a.getHeight() != a.getWidth())
+            throw new IllegalArgumentException("Cholesky decomposition is only defined for square matrices.");
+        if (bandwidth < 0)
+            throw new IllegalArgumentException("Bandwidth should not be negative.");
+        n = a.getHeight();
+        this.bandwidth = bandwidth;
+        l = new double[n * (bandwidth + 1)];
+        for (int i = 0; i < n; ++i) {
+            int row = (i + 1) * bandwidth;
+            for (int k = a.rowPointers[i]; k < a.rowPointers[i + 1]; ++k) {
+                int j = a.columns[k];
+                if (j > i)
+                    continue;
+                if (i - j > bandwidth)
+                    throw new IllegalArgumentException("Item (" + i + ", " + j + ") is outside the band.");
+                l[row + j] = a.values[k];
+            }
+        }
+        positiveDefinite = factor();
+    }
+
+    private boolean factor() {
+        for (int i = 0; i < n; ++i) {
+            int rowI = (i + 1) * bandwidth;
+            int start = Math.max(0, i - bandwidth);
+            for (int j = start; j <= i; ++j) {
+                int rowJ = (j + 1) * bandwidth;
+                double sum = l[rowI + j];
+                for (int k = start; k < j; ++k) {
+                    sum -= l[rowI + k] * l[rowJ + k];
+                }
+                if (j < i) {
+                    l[rowI + j] = sum / l[rowJ + j];
+                } else {
+                    if (!(sum > 0))
+                        return false;
+                    l[rowI + i] = Math.sqrt(sum);
+                }
+            }
+        }
+        return true;
+    }
+
+    public boolean isPositiveDefinite() {
+        return positiveDefinite;
+    }
+
+    @Override
+    public int getDimensions() {
+        return n;
+    }
+
+    public int getBandwidth() {
+        return bandwidth;
+    }
+
+    /**
+     * @return det(A) = Prod {1..n} L_i_i ^ 2, NaN if A is not positive definite.
+     */
+    public double determinant() {
+        if (!positiveDefinite)
+            return Double.NaN;
+        double result = 1;
+        for (int i = 0; i < n; ++i) {
+            double d = l[(i + 1) * bandwidth + i];
+            result *= d * d;
+        }
+        return result;
+    }
+
+    /**
+     * Solves Ax = b as Ly = b, L^T x = y.
+     *
+     * @param b Right part of the system.
+     * @return null, if A is not positive definite. x, such that Ax = b otherwise.
+     */
+    @Override
+    public Vector solve(Vector b) {
+        if (b.getDimensions() != n)
+            throw new IllegalArgumentException("Vector should have size equal to matrix height");
+        if (!positiveDefinite)
+            return null;
+        double[] x = b.getComponents();
+        for (int i = 0; i < n; ++i) {
+            int row = (i + 1) * bandwidth;
+            double sum = x[i];
+            for (int j = Math.max(0, i - bandwidth); j < i; ++j) {
+                sum -= l[row + j] * x[j];
+            }
+            x[i] = sum / l[row + i];
+        }
+        for (int i = n - 1; i >= 0; --i) {
+            int row = (i + 1) * bandwidth;
+            double value = x[i] / l[row + i];
+            x[i] = value;
+            for (int j = Math.max(0, i - bandwidth); j < i; ++j) {
+                x[j] -= l[row + j] * value;
+            }
+        }
+        return new Vector(x);
+    }
+
+    /**
+     * Solves AX = B column by column.
+     *
+     * @param b Matrix of right parts of size [n x k].
+     * @return null, if A is not positive definite. X of size [n x k], such that AX = B otherwise.
+     */
+    @Override
+    public Matrix solve(Matrix b) {
+        if (b.getHeight() != n)
+            throw new IllegalArgumentException("Right parts matrix should have height equal to matrix height");
+        if (!positiveDefinite)
+            return null;
+        int k = b.getWidth();
+        double[] x = new double[n * k];
+        for (int c = 0; c < k; ++c) {
+            Vector column = solve(b.getColumn(c));
+            for (int i = 0; i < n; ++i) {
+                x[i * k + c] = column.get(i);
+            }
+        }
+        return new Matrix(n, k, x);
+    }
+
+    @Override
+    public boolean hasTranspose() {
+        return true;
+    }
+
+    /**
+     * A is symmetric, so A^T x = b is Ax = b.
+     */
+    @Override
+    public Vector solveTransposed(Vector b) {
+        return solve(b);
+    }
+
+    /**
+     * @return Lower triangular factor L.
+     */
+    public Matrix getL() {
+        double[] result = new double[n * n];
+        for (int i = 0; i < n; ++i) {
+            int start = Math.max(0, i - bandwidth);
+            System.arraycopy(l, (i + 1) * bandwidth + start, result, i * n + start, i + 1 - start);
+        }
+        return new Matrix(n, n, result);
+    }
+}
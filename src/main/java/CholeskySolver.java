@@ -0,0 +1,30 @@
+/**
+ * Solves linear equations systems with symmetric positive definite matrix with Cholesky decomposition,
+ * twice as fast as Gaussian elimination. Only the lower triangle of the matrix is read, so the symmetry
+ * is not checked; a matrix which is not positive definite makes the solve fail with
+ * {@link SolverListener.Outcome#BREAKDOWN}. A {@link SparseMatrix} is decomposed within its band,
+ * in O(n p^2) for bandwidth p; other operators are converted to dense matrices.
+ * <p>
+ * A prepared system is solved with its factorization instead, whatever it is.
+ */
+public class CholeskySolver implements Solver {
+
+    public CholeskySolver() {
+    }
+
+    @Override
+    public Solution solve(LinearEquationsSystem s, double epsilon, SolverListener listener) {
+        SolveTracker tracker = new SolveTracker(listener, this, s);
+        Factorization factorization = s.factorization;
+        if (factorization == null && s.a instanceof SparseMatrix) {
+            SparseMatrix a = (SparseMatrix) s.a;
+            factorization = new CholeskyDecomposition(a, a.getBandwidth());
+        } else if (factorization == null) {
+            factorization = new CholeskyDecomposition(s.a.toDense());
+        }
+        tracker.setupDone();
+        Vector solution = factorization.solve(s.b);
+        return solution == null ? tracker.failed(SolverListener.Outcome.BREAKDOWN, 1)
+                : tracker.converged(1, solution);
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Solves linear equations systems with symmetric positive definite matrix with conjugate gradient method.
+ * <p>
+ * Every iteration costs one product of the matrix by vector and a few scalar products.
+ * In exact arithmetic the method converges in at most n iterations. A non-positive curvature
+ * (p, Ap) <= 0 shows that the matrix is not positive definite, then null is returned.
+ * Only {@link LinearOperator#apply} is used, so the operator may be matrix-free.
+ * <p>
+ * With a preconditioner M the method works with M^-1 A instead of A; M should be symmetric
+ * positive definite as well, e.g. {@link JacobiPreconditioner} or {@link SsorPreconditioner}.
+ */
+public class ConjugateGradientSolver implements Solver {
+
+    public final int iterationsLimit;
+    public final Preconditioner.Factory preconditioner;
+
+    public ConjugateGradientSolver(int iterationsLimit) {
+        this(iterationsLimit, null);
+    }
+
+    public ConjugateGradientSolver(int iterationsLimit, Preconditioner.Factory preconditioner) {
+        this.iterationsLimit = iterationsLimit;
+        this.preconditioner = preconditioner;
+    }
+
+    @Override
+    public Solution solve(LinearEquationsSystem s, double epsilon, SolverListener listener) {
+        return solve(s, Vector.zero(s.a.getWidth()), epsilon, listener);
+    }
+
+    @Override
+    public Solution solve(LinearEquationsSystem s, Vector x, double epsilon, SolverListener listener) {
+        SolveTracker.checkGuess(s, x);
+        SolveTracker tracker = new SolveTracker(listener, this, s);
+        Preconditioner m = preconditioner == null ? null : preconditioner.create(s.a);
+        tracker.setupDone();
+        Vector r = s.b;
+        if (!x.isZero()) {
+            r = s.b.subtract(s.a.multiply(x));
+            tracker.products++;
+        }
+        Vector z = precondition(m, r);
+        Vector p = z;
+        double rz = r.product(z);
+        int iterations = 0;
+        double norm = r.norm();
+        while (norm > epsilon) {
+            if (++iterations > iterationsLimit)
+                return tracker.failed(SolverListener.Outcome.ITERATIONS_LIMIT, iterations);
+            Vector ap = s.a.multiply(p);
+            tracker.products++;
+            double curvature = p.product(ap);
+            if (Double.isNaN(curvature))
+                return tracker.failed(SolverListener.Outcome.DIVERGED, iterations);
+            if (!(curvature > 0))
+                return tracker.failed(SolverListener.Outcome.BREAKDOWN, iterations);
+            double alpha = rz / curvature;
+            x.axpy(alpha, p);
+            r = r.subtract(ap.multiply(alpha));
+            norm = r.norm();
+            tracker.iteration(iterations, norm);
+            z = precondition(m, r);
+            double nextRz = r.product(z);
+            p = z.add(p.multiply(nextRz / rz));
+            rz = nextRz;
+        }
+        if (Double.isNaN(norm))
+            return tracker.failed(SolverListener.Outcome.DIVERGED, iterations);
+        return tracker.converged(iterations, x);
+    }
+
+    private static Vector precondition(Preconditioner m, Vector r) {
+        if (m == null)
+            return r;
+        Vector z = Vector.zero(r.getDimensions());
+        m.apply(r, z);
+        return z;
+    }
+}
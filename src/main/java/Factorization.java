@@ -0,0 +1,40 @@
+/**
+ * A factorization of a square matrix A, computed once and then reused
+ * to solve Ax = b for any number of right parts.
+ */
+public interface Factorization {
+
+    public abstract int getDimensions();
+
+    /**
+     * Solves Ax = b for one right part.
+     *
+     * @param b Right part of the system.
+     * @return null, if A is singular. x, such that Ax = b otherwise.
+     */
+    public abstract Vector solve(Vector b);
+
+    /**
+     * Solves AX = B for a block of right parts, which are the columns of B.
+     *
+     * @param b Matrix of right parts of size [n x k].
+     * @return null, if A is singular. X of size [n x k], such that AX = B otherwise.
+     */
+    public abstract Matrix solve(Matrix b);
+
+    public default boolean hasTranspose() {
+        return false;
+    }
+
+    /**
+     * Solves the transposed system A^T x = b with the same factors.
+     *
+     * @param b Right part of the system.
+     * @return null, if A is singular. x, such that A^T x = b otherwise.
+     * @throws UnsupportedOperationException if the factorization cannot solve transposed systems.
+     */
+    public default Vector solveTransposed(Vector b) {
+        throw new UnsupportedOperationException("The factorization does not support transposed systems.");
+    }
+
+}
@@ -0,0 +1,136 @@
+/**
+ * LU decomposition with partial pivoting, PA = LU, stored in single precision.
+ * <p/>
+ * The factors take half the memory of {@link LUDecomposition}, and factoring moves half the data.
+ * The factors are only accurate to about cond(A) * 6e-8, so the solutions are meant to be improved
+ * by iterative refinement, see {@link MixedPrecisionSolver}. Substitution reads the float factors
+ * but accumulates in double.
+ */
+public class FloatLUDecomposition implements Factorization {
+
+    private final float[] lu;
+    private final int[] pivots;
+    private final int pivotSign;
+
+    public FloatLUDecomposition(Matrix a) {
+        if (a.getHeight() != a.getWidth())
+            throw new IllegalArgumentException("LU decomposition is only defined for square matrices.");
+        int n = a.getHeight();
+        lu = new float[n * n];
+        for (int i = 0; i < n; ++i) {
+            int row = a.offset + i * a.stride;
+            for (int j = 0; j < n; ++j) {
+                lu[i * n + j] = (float) a.data[row + j];
+            }
+        }
+        pivots = new int[n];
+        pivotSign = GaussElimination.factor(lu, n, n, pivots);
+    }
+
+    @Override
+    public int getDimensions() {
+        return pivots.length;
+    }
+
+    /**
+     * Checks if the decomposed matrix is singular in single precision: some pivot of U is zero,
+     * or the items of A do not fit float and the factors are infinite or NaN.
+     */
+    public boolean isSingular() {
+        int n = pivots.length;
+        for (int k = 0; k < n; ++k) {
+            float pivot = lu[k * n + k];
+            if (pivot == 0 || Float.isNaN(pivot) || Float.isInfinite(pivot))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return det(A) = sign(P) * Prod {1..n} U_i_i
+     */
+    public double determinant() {
+        int n = pivots.length;
+        double result = pivotSign;
+        for (int k = 0; k < n; ++k) {
+            result *= lu[k * n + k];
+        }
+        return result;
+    }
+
+    /**
+     * Solves Ax = b with forward and back substitution.
+     *
+     * @param b Right part of the system.
+     * @return null, if A is singular in single precision. Approximate x, such that Ax = b otherwise.
+     */
+    @Override
+    public Vector solve(Vector b) {
+        int n = pivots.length;
+        if (b.getDimensions() != n)
+            throw new IllegalArgumentException("Vector should have size equal to matrix height");
+        if (isSingular())
+            return null;
+        double[] x = new double[n];
+        solve(b, x);
+        return new Vector(x);
+    }
+
+    /**
+     * Solves Ax = b into an array, allocating nothing.
+     */
+    void solve(Vector b, double[] x) {
+        int n = pivots.length;
+        for (int i = 0; i < n; ++i) {
+            x[i] = b.get(pivots[i]);
+        }
+        for (int i = 0; i < n; ++i) {
+            int row = i * n;
+            double sum = x[i];
+            for (int j = 0; j < i; ++j) {
+                sum -= lu[row + j] * x[j];
+            }
+            x[i] = sum;
+        }
+        for (int i = n - 1; i >= 0; --i) {
+            int row = i * n;
+            double sum = x[i];
+            for (int j = i + 1; j < n; ++j) {
+                sum -= lu[row + j] * x[j];
+            }
+            x[i] = sum / lu[row + i];
+        }
+    }
+
+    /**
+     * Solves AX = B column by column.
+     *
+     * @param b Matrix of right parts of size [n x k].
+     * @return null, if A is singular in single precision. Approximate X of size [n x k], such that AX = B otherwise.
+     */
+    @Override
+    public Matrix solve(Matrix b) {
+        int n = pivots.length;
+        if (b.getHeight() != n)
+            throw new IllegalArgumentException("Right parts matrix should have height equal to matrix height");
+        if (isSingular())
+            return null;
+        int k = b.getWidth();
+        double[] x = new double[n * k];
+        double[] column = new double[n];
+        for (int c = 0; c < k; ++c) {
+            solve(b.getColumn(c), column);
+            for (int i = 0; i < n; ++i) {
+                x[i * k + c] = column[i];
+            }
+        }
+        return new Matrix(n, k, x);
+    }
+
+    /**
+     * @return Row permutation p, such that i-th row of LU is p[i]-th row of A.
+     */
+    public int[] getPivots() {
+        return pivots.clone();
+    }
+}
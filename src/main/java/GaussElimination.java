@@ -0,0 +1,230 @@
+/**
+ * In-place Gaussian elimination with partial pivoting on a row-major array.
+ * <p/>
+ * The array holds an [n x width] matrix, width >= n: the leading [n x n] block is the matrix of
+ * the system, the rest of the columns (if any) are right parts, which are transformed along with it.
+ * Elimination is right-looking and blocked: a panel of BLOCK_SIZE columns is factored first,
+ * then the rest of the matrix is updated with the whole panel at once, tile by tile,
+ * so that the pivot rows of the panel stay in cache while the other rows stream through it.
+ */
+final class GaussElimination {
+
+    public static final int BLOCK_SIZE = 48;
+    public static final int TILE_WIDTH = 256;
+
+    private GaussElimination() {
+    }
+
+    /**
+     * Factors the leading [n x n] block into PA = LU in place: U is left in the upper triangle,
+     * multipliers of L below the diagonal. The same row operations are applied to columns n..width-1.
+     *
+     * @param a           Row-major [n x width] array.
+     * @param n           Number of equations.
+     * @param width       Row length, width >= n.
+     * @param permutation Output of size n, i-th row after elimination is permutation[i]-th row before it.
+     * @return Sign of the row permutation, 1 or -1.
+     */
+    static int factor(double[] a, int n, int width, int[] permutation) {
+        for (int i = 0; i < n; ++i) {
+            permutation[i] = i;
+        }
+        int sign = 1;
+        for (int k0 = 0; k0 < n; k0 += BLOCK_SIZE) {
+            int k1 = Math.min(k0 + BLOCK_SIZE, n);
+            for (int k = k0; k < k1; ++k) {
+                int p = k;
+                double max = Math.abs(a[k * width + k]);
+                for (int i = k + 1; i < n; ++i) {
+                    double value = Math.abs(a[i * width + k]);
+                    if (value > max) {
+                        max = value;
+                        p = i;
+                    }
+                }
+                if (p != k) {
+                    swapRows(a, width, p, k);
+                    int t = permutation[p];
+                    permutation[p] = permutation[k];
+                    permutation[k] = t;
+                    sign = -sign;
+                }
+                double pivot = a[k * width + k];
+                if (pivot == 0) {
+                    continue;
+                }
+                int pivotRow = k * width;
+                for (int i = k + 1; i < n; ++i) {
+                    int row = i * width;
+                    double factor = a[row + k] / pivot;
+                    a[row + k] = factor;
+                    if (factor == 0) {
+                        continue;
+                    }
+                    for (int j = k + 1; j < k1; ++j) {
+                        a[row + j] -= factor * a[pivotRow + j];
+                    }
+                }
+            }
+            if (k1 == width) {
+                continue;
+            }
+            for (int r = k0 + 1; r < k1; ++r) {
+                updateRow(a, width, r, k0, r, k1, width);
+            }
+            for (int j0 = k1; j0 < width; j0 += TILE_WIDTH) {
+                int j1 = Math.min(j0 + TILE_WIDTH, width);
+                for (int i = k1; i < n; ++i) {
+                    updateRow(a, width, i, k0, k1, j0, j1);
+                }
+            }
+        }
+        return sign;
+    }
+
+    /**
+     * The same as {@link #factor(double[], int, int, int[])} in single precision, which halves
+     * the memory traffic of the updates.
+     *
+     * @param a           Row-major [n x width] array.
+     * @param n           Number of equations.
+     * @param width       Row length, width >= n.
+     * @param permutation Output of size n, i-th row after elimination is permutation[i]-th row before it.
+     * @return Sign of the row permutation, 1 or -1.
+     */
+    static int factor(float[] a, int n, int width, int[] permutation) {
+        for (int i = 0; i < n; ++i) {
+            permutation[i] = i;
+        }
+        int sign = 1;
+        for (int k0 = 0; k0 < n; k0 += BLOCK_SIZE) {
+            int k1 = Math.min(k0 + BLOCK_SIZE, n);
+            for (int k = k0; k < k1; ++k) {
+                int p = k;
+                float max = Math.abs(a[k * width + k]);
+                for (int i = k + 1; i < n; ++i) {
+                    float value = Math.abs(a[i * width + k]);
+                    if (value > max) {
+                        max = value;
+                        p = i;
+                    }
+                }
+                if (p != k) {
+                    swapRows(a, width, p, k);
+                    int t = permutation[p];
+                    permutation[p] = permutation[k];
+                    permutation[k] = t;
+                    sign = -sign;
+                }
+                float pivot = a[k * width + k];
+                if (pivot == 0) {
+                    continue;
+                }
+                int pivotRow = k * width;
+                for (int i = k + 1; i < n; ++i) {
+                    int row = i * width;
+                    float factor = a[row + k] / pivot;
+                    a[row + k] = factor;
+                    if (factor == 0) {
+                        continue;
+                    }
+                    for (int j = k + 1; j < k1; ++j) {
+                        a[row + j] -= factor * a[pivotRow + j];
+                    }
+                }
+            }
+            if (k1 == width) {
+                continue;
+            }
+            for (int r = k0 + 1; r < k1; ++r) {
+                updateRow(a, width, r, k0, r, k1, width);
+            }
+            for (int j0 = k1; j0 < width; j0 += TILE_WIDTH) {
+                int j1 = Math.min(j0 + TILE_WIDTH, width);
+                for (int i = k1; i < n; ++i) {
+                    updateRow(a, width, i, k0, k1, j0, j1);
+                }
+            }
+        }
+        return sign;
+    }
+
+    /**
+     * Replaces the right parts in columns n..width-1 of a factored array with the solutions,
+     * solving Ux = y from the last row to the first.
+     *
+     * @param a     Row-major [n x width] array, factored by {@link #factor}.
+     * @param n     Number of equations.
+     * @param width Row length.
+     */
+    static void substituteBackward(double[] a, int n, int width) {
+        for (int i = n - 1; i >= 0; --i) {
+            int row = i * width;
+            for (int j = i + 1; j < n; ++j) {
+                double factor = a[row + j];
+                if (factor == 0) {
+                    continue;
+                }
+                int solutionRow = j * width;
+                for (int c = n; c < width; ++c) {
+                    a[row + c] -= factor * a[solutionRow + c];
+                }
+            }
+            double pivot = a[row + i];
+            for (int c = n; c < width; ++c) {
+                a[row + c] /= pivot;
+            }
+        }
+    }
+
+    /**
+     * row[j0..j1) -= Sum {k0..k1-1} row[k] * a[k][j0..j1)
+     */
+    private static void updateRow(double[] a, int width, int i, int k0, int k1, int j0, int j1) {
+        int row = i * width;
+        for (int k = k0; k < k1; ++k) {
+            double factor = a[row + k];
+            if (factor == 0) {
+                continue;
+            }
+            int pivotRow = k * width;
+            for (int j = j0; j < j1; ++j) {
+                a[row + j] -= factor * a[pivotRow + j];
+            }
+        }
+    }
+
+    private static void swapRows(double[] a, int width, int p, int q) {
+        int rowP = p * width;
+        int rowQ = q * width;
+        for (int j = 0; j < width; ++j) {
+            double t = a[rowP + j];
+            a[rowP + j] = a[rowQ + j];
+            a[rowQ + j] = t;
+        }
+    }
+
+    private static void updateRow(float[] a, int width, int i, int k0, int k1, int j0, int j1) {
+        int row = i * width;
+        for (int k = k0; k < k1; ++k) {
+            float factor = a[row + k];
+            if (factor == 0) {
+                continue;
+            }
+            int pivotRow = k * width;
+            for (int j = j0; j < j1; ++j) {
+                a[row + j] -= factor * a[pivotRow + j];
+            }
+        }
+    }
+
+    private static void swapRows(float[] a, int width, int p, int q) {
+        int rowP = p * width;
+        int rowQ = q * width;
+        for (int j = 0; j < width; ++j) {
+            float t = a[rowP + j];
+            a[rowP + j] = a[rowQ + j];
+            a[rowQ + j] = t;
+        }
+    }
+}
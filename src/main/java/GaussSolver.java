@@ -1,4 +1,13 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
+ * Solves linear equations systems with Gaussian elimination with partial pivoting.
+ * <p>
+ * Elimination and back substitution are done in place on one copy of the extended matrix (A|b).
+ * An {@link OffHeapMatrix} is copied into storage of its kind instead and factored by {@link OutOfCoreLU},
+ * so the heap it takes does not grow with the matrix.
+ * <p>
  * Created by viacheslav on 20.02.2015.
  */
 public class GaussSolver implements Solver {
@@ -7,30 +16,52 @@ public class GaussSolver implements Solver {
     }
 
     @Override
-    public Solution solve(LinearEquationsSystem s, double epsilon) {
-        Matrix a = s.a;
-        Vector b = s.b;
-
-        int variables = a.getHeight();
-
-        Matrix extended = Matrix.getExtended(a, b);
-        for(int i=0; i<variables; ++i) {
-            extended = extended.excludeVariableForward(i);
+    public Solution solve(LinearEquationsSystem s, double epsilon, SolverListener listener) {
+        SolveTracker tracker = new SolveTracker(listener, this, s);
+        if (s.isPrepared()) {
+            tracker.setupDone();
+            Vector solution = s.factorization.solve(s.b);
+            return solution == null ? tracker.failed(SolverListener.Outcome.BREAKDOWN, 1)
+                    : tracker.converged(1, solution);
         }
 
-        double value;
+        if (s.a instanceof OffHeapMatrix)
+            return solveOutOfCore((OffHeapMatrix) s.a, s.b, tracker);
 
-        double[] answer = extended.getDiagonal();
+        Matrix a = s.a.toDense();
+        int variables = a.getHeight();
+        if (a.getWidth() != variables)
+            throw new IllegalArgumentException("Gauss method is only defined for square matrices.");
 
-        for(int i=variables-1; i>=0; i--)
-        {
-            value = extended.get(i, variables)/extended.get(i, i);
-            answer[i] = value;
-            extended = extended.excludeVariableBackward(i);
+        int width = variables + 1;
+        double[] extended = Matrix.getExtended(a, s.b).data;
+        GaussElimination.factor(extended, variables, width, new int[variables]);
+        tracker.setupDone();
+        for (int i = 0; i < variables; ++i) {
+            if (!(Math.abs(extended[i * width + i]) >= Matrix.REVERSE_DETERMINANT_EPSILON))
+                return tracker.failed(SolverListener.Outcome.BREAKDOWN, 1);
         }
+        GaussElimination.substituteBackward(extended, variables, width);
 
-        Vector solution = new Vector(answer);
+        double[] answer = new double[variables];
+        for (int i = 0; i < variables; ++i) {
+            answer[i] = extended[i * width + variables];
+        }
+        return tracker.converged(1, new Vector(answer));
+    }
 
-        return new Solution(1, solution);
+    private Solution solveOutOfCore(OffHeapMatrix a, Vector b, SolveTracker tracker) {
+        if (a.getWidth() != a.getHeight())
+            throw new IllegalArgumentException("Gauss method is only defined for square matrices.");
+        OutOfCoreLU lu;
+        try {
+            lu = new OutOfCoreLU(a.copy());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        tracker.setupDone();
+        Vector solution = lu.solve(b);
+        return solution == null ? tracker.failed(SolverListener.Outcome.BREAKDOWN, 1)
+                : tracker.converged(1, solution);
     }
 }
@@ -0,0 +1,156 @@
+import java.util.Arrays;
+
+/**
+ * Solves linear equations systems with restarted generalized minimal residual method, GMRES(m).
+ * <p>
+ * Builds an orthonormal basis of the Krylov subspace span {r, Ar, ..., A^(m-1) r} with modified
+ * Gram-Schmidt and picks x minimizing |b - Ax| over it; the least squares problem is kept triangular
+ * with Givens rotations, so the residual norm is known on every iteration without computing it.
+ * After m iterations the method restarts from the current x. The basis, the Hessenberg matrix and
+ * the rotations are allocated once per solve and reused by all the restarts.
+ * <p>
+ * Works for any nonsingular matrix. A preconditioner is applied from the right, A M^-1 y = b,
+ * so the residual being minimized is the residual of the original system.
+ */
+public class GmresSolver implements Solver {
+
+    public static final int DEFAULT_RESTART = 30;
+
+    public final int iterationsLimit;
+    public final int restart;
+    public final Preconditioner.Factory preconditioner;
+
+    public GmresSolver(int iterationsLimit) {
+        this(iterationsLimit, DEFAULT_RESTART, null);
+    }
+
+    public GmresSolver(int iterationsLimit, int restart) {
+        this(iterationsLimit, restart, null);
+    }
+
+    public GmresSolver(int iterationsLimit, int restart, Preconditioner.Factory preconditioner) {
+        if (restart <= 0)
+            throw new IllegalArgumentException("Restart length should be positive.");
+        this.iterationsLimit = iterationsLimit;
+        this.restart = restart;
+        this.preconditioner = preconditioner;
+    }
+
+    @Override
+    public Solution solve(LinearEquationsSystem s, double epsilon, SolverListener listener) {
+        return solve(s, Vector.zero(s.a.getWidth()), epsilon, listener);
+    }
+
+    @Override
+    public Solution solve(LinearEquationsSystem s, Vector x, double epsilon, SolverListener listener) {
+        SolveTracker.checkGuess(s, x);
+        SolveTracker tracker = new SolveTracker(listener, this, s);
+        int n = s.b.getDimensions();
+        int m = Math.min(restart, n);
+        Preconditioner preconditionerM = preconditioner == null ? null : preconditioner.create(s.a);
+
+        double[] basis = new double[(m + 1) * n];
+        Vector[] v = new Vector[m + 1];
+        for (int i = 0; i <= m; ++i) {
+            v[i] = new Vector(basis, i * n, 1, n);
+        }
+        double[][] h = new double[m + 1][m];
+        double[] cs = new double[m];
+        double[] sn = new double[m];
+        double[] g = new double[m + 1];
+        double[] y = new double[m];
+        Vector r = Vector.zero(n);
+        Vector z = Vector.zero(n);
+        Vector u = Vector.zero(n);
+        tracker.setupDone();
+
+        int iterations = 0;
+        while (true) {
+            s.a.apply(x, r);
+            tracker.products++;
+            for (int i = 0; i < n; ++i) {
+                r.set(i, s.b.get(i) - r.get(i));
+            }
+            double beta = Math.sqrt(r.product(r));
+            if (Double.isNaN(beta))
+                return tracker.failed(SolverListener.Outcome.DIVERGED, iterations);
+            if (beta <= epsilon)
+                return tracker.converged(iterations, x);
+            for (int i = 0; i < n; ++i) {
+                v[0].set(i, r.get(i) / beta);
+            }
+            Arrays.fill(g, 0);
+            g[0] = beta;
+
+            int k = 0;
+            while (k < m) {
+                if (++iterations > iterationsLimit)
+                    return tracker.failed(SolverListener.Outcome.ITERATIONS_LIMIT, iterations);
+                Vector w = v[k + 1];
+                if (preconditionerM == null) {
+                    s.a.apply(v[k], w);
+                } else {
+                    preconditionerM.apply(v[k], z);
+                    s.a.apply(z, w);
+                }
+                tracker.products++;
+                for (int i = 0; i <= k; ++i) {
+                    double hik = w.product(v[i]);
+                    h[i][k] = hik;
+                    for (int j = 0; j < n; ++j) {
+                        w.set(j, w.get(j) - hik * v[i].get(j));
+                    }
+                }
+                double norm = Math.sqrt(w.product(w));
+                h[k + 1][k] = norm;
+                if (norm != 0) {
+                    for (int j = 0; j < n; ++j) {
+                        w.set(j, w.get(j) / norm);
+                    }
+                }
+                for (int i = 0; i < k; ++i) {
+                    double t = cs[i] * h[i][k] + sn[i] * h[i + 1][k];
+                    h[i + 1][k] = -sn[i] * h[i][k] + cs[i] * h[i + 1][k];
+                    h[i][k] = t;
+                }
+                double rho = Math.hypot(h[k][k], h[k + 1][k]);
+                if (rho == 0)
+                    return tracker.failed(SolverListener.Outcome.BREAKDOWN, iterations);
+                cs[k] = h[k][k] / rho;
+                sn[k] = h[k + 1][k] / rho;
+                h[k][k] = rho;
+                h[k + 1][k] = 0;
+                g[k + 1] = -sn[k] * g[k];
+                g[k] = cs[k] * g[k];
+                ++k;
+                tracker.iteration(iterations, Math.abs(g[k]));
+                if (Math.abs(g[k]) <= epsilon || norm == 0) {
+                    break;
+                }
+            }
+
+            for (int i = k - 1; i >= 0; --i) {
+                double sum = g[i];
+                for (int j = i + 1; j < k; ++j) {
+                    sum -= h[i][j] * y[j];
+                }
+                y[i] = sum / h[i][i];
+            }
+            for (int j = 0; j < n; ++j) {
+                double sum = 0;
+                for (int i = 0; i < k; ++i) {
+                    sum += y[i] * v[i].get(j);
+                }
+                u.set(j, sum);
+            }
+            Vector correction = u;
+            if (preconditionerM != null) {
+                preconditionerM.apply(u, z);
+                correction = z;
+            }
+            for (int j = 0; j < n; ++j) {
+                x.set(j, x.get(j) + correction.get(j));
+            }
+        }
+    }
+}
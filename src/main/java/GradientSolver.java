@@ -1,34 +1,87 @@
 /**
  * Solves a linear equations system with gradient method.
+ * <p>
+ * Minimizes |Ax - b|^2 by steepest descent along g = A^T (Ax - b). The products by A^T A
+ * are done as two products by vector, A (A^T r), so an iteration costs two matvecs.
+ * The operator may be matrix-free, but it should support the transposed product.
+ * <p>
+ * With a preconditioner M the descent goes along the preconditioned residual g = M^-1 (Ax - b)
+ * instead, with the step minimizing |Ax - b| along it. The transposed product is not needed then,
+ * and for M close to A the direction is close to the error itself.
  *
  * Created by Sergey on 21.02.2015.
  */
 public class GradientSolver implements Solver {
 
     public final int iterationsLimit;
+    public final Preconditioner.Factory preconditioner;
 
     public GradientSolver(int iterationsLimit) {
+        this(iterationsLimit, null);
+    }
+
+    public GradientSolver(int iterationsLimit, Preconditioner.Factory preconditioner) {
         this.iterationsLimit = iterationsLimit;
+        this.preconditioner = preconditioner;
     }
 
     @Override
-    public Solution solve(LinearEquationsSystem s, double epsilon) {
-        Matrix at = s.a.transponed();
+    public Solution solve(LinearEquationsSystem s, double epsilon, SolverListener listener) {
         double[] firstX = new double[s.b.getDimensions()];
-        for (int i = 0; i < s.b.getDimensions(); ++i) {
-            firstX[i] = -s.b.get(i) / s.a.get(i, i);
+        if (s.a.hasDiagonal()) {
+            double[] diagonal = s.a.getDiagonal();
+            for (int i = 0; i < s.b.getDimensions(); ++i) {
+                firstX[i] = -s.b.get(i) / diagonal[i];
+            }
         }
-        Vector x = new Vector(firstX);
-        Vector rp = s.a.multiply(x).subtract(s.b);
+        return solve(s, new Vector(firstX), epsilon, listener);
+    }
+
+    @Override
+    public Solution solve(LinearEquationsSystem s, Vector x, double epsilon, SolverListener listener) {
+        if (preconditioner == null && !s.a.hasTranspose())
+            throw new IllegalArgumentException("Gradient method needs the transposed operator.");
+        SolveTracker.checkGuess(s, x);
+        SolveTracker tracker = new SolveTracker(listener, this, s);
+        Preconditioner m = preconditioner == null ? null : preconditioner.create(s.a);
+        // Work vectors are updated in place, so the loop itself allocates nothing.
+        Vector rp = Vector.zero(s.b.getDimensions());
+        Vector g = Vector.zero(s.b.getDimensions());
+        Vector w = Vector.zero(s.b.getDimensions());
+        tracker.setupDone();
+        s.a.apply(x, rp);
+        rp.axpy(-1, s.b);
+        tracker.products++;
         int iterations = 0;
-        while (rp.norm() > epsilon) {
-            Vector w = s.a.multiply(at).multiply(rp);
-            double mu = rp.product(w) / w.norm() / w.norm();
-            x = x.subtract(s.a.multiply(rp).multiply(mu));
-            if (++iterations == iterationsLimit || x.hasNaN())
-                return null;
-            rp = s.a.multiply(x).subtract(s.b);
+        double norm;
+        while ((norm = rp.norm2()) > epsilon) {
+            if (m == null) {
+                s.a.applyTransposed(rp, g);
+                tracker.products++;
+            } else {
+                m.apply(rp, g);
+            }
+            s.a.apply(g, w);
+            tracker.products++;
+            double mu = rp.dot(w) / w.dot(w);
+            x.axpy(-mu, g);
+            if (x.hasNaN())
+                return tracker.failed(SolverListener.Outcome.DIVERGED, iterations + 1);
+            if (++iterations == iterationsLimit)
+                return tracker.failed(SolverListener.Outcome.ITERATIONS_LIMIT, iterations);
+            rp.axpy(-mu, w);
+            if (!(rp.norm2() > epsilon)) {
+                // The updated residual drifts from the true one, check it before stopping.
+                s.a.apply(x, rp);
+                rp.axpy(-1, s.b);
+                tracker.products++;
+            }
+            if (tracker.isSampled(iterations)) {
+                tracker.iteration(iterations, rp.norm2());
+            }
         }
-        return new Solution(iterations, x);
+        if (Double.isNaN(norm))
+            return tracker.failed(SolverListener.Outcome.DIVERGED, iterations);
+        return tracker.converged(iterations, x);
     }
 }
@@ -0,0 +1,26 @@
+/**
+ * Diagonal (Jacobi) preconditioner, M = D. Costs O(n) to build and apply.
+ */
+public class JacobiPreconditioner implements Preconditioner {
+
+    private final double[] inverseDiagonal;
+
+    public JacobiPreconditioner(LinearOperator a) {
+        if (!a.hasDiagonal())
+            throw new IllegalArgumentException("Jacobi preconditioner needs the diagonal of the operator.");
+        double[] diagonal = a.getDiagonal();
+        inverseDiagonal = new double[diagonal.length];
+        for (int i = 0; i < diagonal.length; ++i) {
+            if (diagonal[i] == 0)
+                throw new IllegalArgumentException("Jacobi preconditioner needs non-zero diagonal items.");
+            inverseDiagonal[i] = 1 / diagonal[i];
+        }
+    }
+
+    @Override
+    public void apply(Vector r, Vector z) {
+        for (int i = 0; i < inverseDiagonal.length; ++i) {
+            z.set(i, r.get(i) * inverseDiagonal[i]);
+        }
+    }
+}
@@ -1,5 +1,12 @@
 /**
  * Solves linear equations systems using Jacobi method.
+ * <p>
+ * Iterates x' = x + D^-1 (b - Ax), which equals x' = (E - D^-1 A) x + D^-1 b
+ * without building E - D^-1 A, so every iteration is one product by A: O(nnz) for sparse matrices.
+ * The operator may be matrix-free, but it should provide its diagonal.
+ * <p>
+ * The rows of an iteration are independent, so both the product and the update
+ * can be split between threads with {@link ParallelExecution}.
  *
  * Created by Sergey on 20.02.2015.
  */
@@ -7,28 +14,80 @@ public class JacobiSolver implements Solver {
 
     public final double q;
     public final int iterationsLimit;
+    public final ParallelExecution execution;
 
     public JacobiSolver(double q, int iterationsLimit) {
+        this(q, iterationsLimit, ParallelExecution.SEQUENTIAL);
+    }
+
+    public JacobiSolver(double q, int iterationsLimit, ParallelExecution execution) {
         this.q = q;
         this.iterationsLimit = iterationsLimit;
+        this.execution = execution;
+    }
+
+    @Override
+    public Solution solve(LinearEquationsSystem s, double epsilon, SolverListener listener) {
+        return solve(s, Vector.zero(s.a.getWidth()), epsilon, listener);
     }
 
     @Override
-    public Solution solve(LinearEquationsSystem s, double epsilon) {
-        Matrix d = Matrix.byDiagonal(s.a.getDiagonal());
-        Matrix dReversed = d.reversed();
-        Matrix b = Matrix.unit(s.a.getHeight()).subtract(dReversed.multiply(s.a));
-        Vector g = dReversed.multiply(s.b);
-        Vector x = Vector.zero(s.b.getDimensions());
-        Vector nextX = x;
+    public Solution solve(LinearEquationsSystem s, Vector guess, double epsilon, SolverListener listener) {
+        if (!s.a.hasDiagonal())
+            throw new IllegalArgumentException("Jacobi method needs the diagonal of the operator.");
+        SolveTracker.checkGuess(s, guess);
+        SolveTracker tracker = new SolveTracker(listener, this, s);
+        double[] d = s.a.getDiagonal();
+        int n = s.b.getDimensions();
+        // Work vectors are swapped between iterations, so the loop itself allocates nothing.
+        Vector x = guess;
+        Vector nextX = Vector.zero(n);
+        Vector ax = Vector.zero(n);
+        tracker.setupDone();
         int iterations = 0;
-        do {
-            x = nextX;
-            nextX = b.multiply(x).add(g);
+        while (true) {
+            jacobiProduct(s.a, d, x, s.b, ax, nextX);
+            tracker.products++;
             iterations++;
-            if (nextX.hasNaN() || iterations > iterationsLimit)
-                return null;
-        } while (!x.equals(nextX, epsilon * (1 - q)));
-        return new Solution(iterations, nextX);
+            if (nextX.hasNaN())
+                return tracker.failed(SolverListener.Outcome.DIVERGED, iterations);
+            if (iterations > iterationsLimit)
+                return tracker.failed(SolverListener.Outcome.ITERATIONS_LIMIT, iterations);
+            if (tracker.isSampled(iterations)) {
+                tracker.iteration(iterations, Vector.distance(x, nextX));
+            }
+            if (x.equals(nextX, epsilon * (1 - q)))
+                break;
+            Vector swap = x;
+            x = nextX;
+            nextX = swap;
+        }
+        if (nextX != guess) {
+            nextX.copyInto(guess);
+        }
+        return tracker.converged(iterations, guess);
+    }
+
+    /**
+     * Makes a Jacobi iteration, result = x + D^-1 (b - Ax).
+     *
+     * @param ax     Work vector for Ax.
+     * @param result Vector for the next approximation, should not overlap x.
+     */
+    protected void jacobiProduct(LinearOperator a, final double[] d, final Vector x, final Vector b,
+                                 final Vector ax, final Vector result) {
+        if (execution == ParallelExecution.SEQUENTIAL) {
+            a.apply(x, ax);
+            jacobiUpdate(d, x, b, ax, result, 0, d.length);
+            return;
+        }
+        a.apply(x, ax, execution);
+        execution.forRange(d.length, (from, to) -> jacobiUpdate(d, x, b, ax, result, from, to));
+    }
+
+    private static void jacobiUpdate(double[] d, Vector x, Vector b, Vector ax, Vector result, int from, int to) {
+        for (int i = from; i < to; ++i) {
+            result.set(i, x.get(i) + (b.get(i) - ax.get(i)) / d[i]);
+        }
     }
 }
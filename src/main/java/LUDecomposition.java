@@ -0,0 +1,233 @@
+/**
+ * LU decomposition of a square matrix with partial (row) pivoting, PA = LU.
+ * <p/>
+ * L is unit lower triangular and U is upper triangular; both are stored in one row-major array,
+ * the unit diagonal of L is implicit. Factoring is done by {@link GaussElimination}. Building the decomposition costs O(n^3),
+ * after that determinant is O(n), solving for a right part is O(n^2) and inverse is O(n^3).
+ */
+public class LUDecomposition implements Factorization {
+
+    private final double[] lu;
+    private final int[] pivots;
+    private final int pivotSign;
+
+    public LUDecomposition(Matrix a) {
+        if (a.getHeight() != a.getWidth())
+            throw new IllegalArgumentException("LU decomposition is only defined for square matrices.");
+        int n = a.getHeight();
+        lu = a.toArray();
+        pivots = new int[n];
+        pivotSign = GaussElimination.factor(lu, n, n, pivots);
+    }
+
+    @Override
+    public int getDimensions() {
+        return pivots.length;
+    }
+
+    /**
+     * Checks if the decomposed matrix is singular, i.e. some pivot of U is approximately zero.
+     *
+     * @param epsilon Pivots with absolute value less than epsilon are treated as zero.
+     * @return true, if there is |U_k_k| < epsilon.
+     */
+    public boolean isSingular(double epsilon) {
+        int n = pivots.length;
+        for (int k = 0; k < n; ++k) {
+            if (!(Math.abs(lu[k * n + k]) >= epsilon))
+                return true;
+        }
+        return false;
+    }
+
+    public boolean isSingular() {
+        return isSingular(Matrix.REVERSE_DETERMINANT_EPSILON);
+    }
+
+    /**
+     * Calculates the determinant of the decomposed matrix.
+     *
+     * @return det(A) = sign(P) * Prod {1..n} U_i_i
+     */
+    public double determinant() {
+        int n = pivots.length;
+        double result = pivotSign;
+        for (int k = 0; k < n; ++k) {
+            result *= lu[k * n + k];
+        }
+        return result;
+    }
+
+    /**
+     * Solves Ax = b with forward and back substitution.
+     *
+     * @param b Right part of the system.
+     * @return null, if A is singular. x, such that Ax = b otherwise.
+     */
+    @Override
+    public Vector solve(Vector b) {
+        int n = pivots.length;
+        if (b.getDimensions() != n)
+            throw new IllegalArgumentException("Vector should have size equal to matrix height");
+        if (isSingular())
+            return null;
+        double[] x = new double[n];
+        for (int i = 0; i < n; ++i) {
+            x[i] = b.get(pivots[i]);
+        }
+        for (int i = 0; i < n; ++i) {
+            int row = i * n;
+            double sum = x[i];
+            for (int j = 0; j < i; ++j) {
+                sum -= lu[row + j] * x[j];
+            }
+            x[i] = sum;
+        }
+        for (int i = n - 1; i >= 0; --i) {
+            int row = i * n;
+            double sum = x[i];
+            for (int j = i + 1; j < n; ++j) {
+                sum -= lu[row + j] * x[j];
+            }
+            x[i] = sum / lu[row + i];
+        }
+        return new Vector(x);
+    }
+
+    @Override
+    public boolean hasTranspose() {
+        return true;
+    }
+
+    /**
+     * Solves A^T x = b as U^T L^T P x = b: forward substitution with U^T and back substitution with L^T,
+     * both going along the rows of U and L, then the inverse permutation.
+     *
+     * @param b Right part of the system.
+     * @return null, if A is singular. x, such that A^T x = b otherwise.
+     */
+    @Override
+    public Vector solveTransposed(Vector b) {
+        int n = pivots.length;
+        if (b.getDimensions() != n)
+            throw new IllegalArgumentException("Vector should have size equal to matrix height");
+        if (isSingular())
+            return null;
+        double[] z = b.getComponents();
+        for (int i = 0; i < n; ++i) {
+            int row = i * n;
+            double value = z[i] / lu[row + i];
+            z[i] = value;
+            for (int j = i + 1; j < n; ++j) {
+                z[j] -= lu[row + j] * value;
+            }
+        }
+        for (int i = n - 1; i >= 0; --i) {
+            int row = i * n;
+            double value = z[i];
+            for (int j = 0; j < i; ++j) {
+                z[j] -= lu[row + j] * value;
+            }
+        }
+        double[] x = new double[n];
+        for (int i = 0; i < n; ++i) {
+            x[pivots[i]] = z[i];
+        }
+        return new Vector(x);
+    }
+
+    /**
+     * Solves AX = B for all the columns of B at once. Substitution is done with whole rows of X,
+     * so every row of L and U is read once per block instead of once per right part.
+     *
+     * @param b Matrix of right parts of size [n x k].
+     * @return null, if A is singular. X of size [n x k], such that AX = B otherwise.
+     */
+    @Override
+    public Matrix solve(Matrix b) {
+        int n = pivots.length;
+        if (b.getHeight() != n)
+            throw new IllegalArgumentException("Right parts matrix should have height equal to matrix height");
+        if (isSingular())
+            return null;
+        int k = b.getWidth();
+        double[] x = new double[n * k];
+        for (int i = 0; i < n; ++i) {
+            System.arraycopy(b.data, b.offset + pivots[i] * b.stride, x, i * k, k);
+        }
+        for (int i = 0; i < n; ++i) {
+            int row = i * n;
+            int xi = i * k;
+            for (int j = 0; j < i; ++j) {
+                double factor = lu[row + j];
+                if (factor == 0) {
+                    continue;
+                }
+                int xj = j * k;
+                for (int c = 0; c < k; ++c) {
+                    x[xi + c] -= factor * x[xj + c];
+                }
+            }
+        }
+        for (int i = n - 1; i >= 0; --i) {
+            int row = i * n;
+            int xi = i * k;
+            for (int j = i + 1; j < n; ++j) {
+                double factor = lu[row + j];
+                if (factor == 0) {
+                    continue;
+                }
+                int xj = j * k;
+                for (int c = 0; c < k; ++c) {
+                    x[xi + c] -= factor * x[xj + c];
+                }
+            }
+            double pivot = lu[row + i];
+            for (int c = 0; c < k; ++c) {
+                x[xi + c] /= pivot;
+            }
+        }
+        return new Matrix(n, k, x);
+    }
+
+    /**
+     * Calculates the inverse matrix A^-1 as solution of AX = E.
+     *
+     * @return null, if A is singular. A^-1 otherwise.
+     */
+    public Matrix inverse() {
+        return solve(Matrix.unit(pivots.length));
+    }
+
+    /**
+     * @return Unit lower triangular factor L.
+     */
+    public Matrix getL() {
+        int n = pivots.length;
+        double[] result = new double[n * n];
+        for (int i = 0; i < n; ++i) {
+            System.arraycopy(lu, i * n, result, i * n, i);
+            result[i * n + i] = 1;
+        }
+        return new Matrix(n, n, result);
+    }
+
+    /**
+     * @return Upper triangular factor U.
+     */
+    public Matrix getU() {
+        int n = pivots.length;
+        double[] result = new double[n * n];
+        for (int i = 0; i < n; ++i) {
+            System.arraycopy(lu, i * n + i, result, i * n + i, n - i);
+        }
+        return new Matrix(n, n, result);
+    }
+
+    /**
+     * @return Row permutation p, such that i-th row of LU is p[i]-th row of A.
+     */
+    public int[] getPivots() {
+        return pivots.clone();
+    }
+}
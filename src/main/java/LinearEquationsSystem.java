@@ -1,24 +1,74 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
  * Created by Sergey on 20.02.2015.
  */
 public class LinearEquationsSystem {
 
-    public final Matrix a;
+    public final LinearOperator a;
     public final Vector b;
 
-    public LinearEquationsSystem(Matrix a) {
+    /**
+     * Factorization of a, if the system is prepared, null otherwise.
+     */
+    public final Factorization factorization;
+
+    public LinearEquationsSystem(LinearOperator a) {
         this(a, Vector.zero(a.getHeight()));
     }
 
-    public LinearEquationsSystem(Matrix a, Vector b) {
+    public LinearEquationsSystem(LinearOperator a, Vector b) {
+        this(a, b, null);
+    }
+
+    public LinearEquationsSystem(LinearOperator a, Vector b, Factorization factorization) {
         if (a.getHeight() != b.getDimensions()) {
             throw new IllegalArgumentException("Vector should have size equal to matrix height");
         }
+        if (factorization != null && factorization.getDimensions() != a.getHeight()) {
+            throw new IllegalArgumentException("Factorization should have size equal to matrix height");
+        }
 
         this.a = a;
         this.b = b;
+        this.factorization = factorization;
     }
 
+    public boolean isPrepared() {
+        return factorization != null;
+    }
 
+    /**
+     * Factors the matrix once, so that systems with the same matrix can be solved in O(n^2).
+     * <p>
+     * An {@link OffHeapMatrix} is factored by {@link OutOfCoreLU} in a copy of its kind, so it is not loaded
+     * on the heap.
+     *
+     * @return A system with the same matrix and right part holding a factorization of a;
+     * this system, if it is already prepared.
+     */
+    public LinearEquationsSystem prepare() {
+        if (isPrepared())
+            return this;
+        if (a instanceof OffHeapMatrix) {
+            try {
+                return new LinearEquationsSystem(a, b, new OutOfCoreLU(((OffHeapMatrix) a).copy()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return new LinearEquationsSystem(a, b, new LUDecomposition(a.toDense()));
+    }
+
+    /**
+     * Makes a system with the same matrix (and factorization, if prepared) and another right part.
+     *
+     * @param b New right part.
+     * @return System a * x = b
+     */
+    public LinearEquationsSystem withRightPart(Vector b) {
+        return new LinearEquationsSystem(a, b, factorization);
+    }
 
 }
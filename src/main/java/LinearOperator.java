@@ -0,0 +1,105 @@
+/**
+ * Linear operator A of a linear equations system. It can be a matrix stored densely ({@link Matrix})
+ * or sparsely ({@link SparseMatrix}), or a matrix-free operator, which only knows how to apply itself
+ * to a vector, e.g. a stencil.
+ * <p>
+ * Only {@link #apply} is required. The diagonal and the transposed product are optional:
+ * solvers which need them check {@link #hasDiagonal()} and {@link #hasTranspose()}.
+ */
+public interface LinearOperator {
+
+    public abstract int getHeight();
+
+    public abstract int getWidth();
+
+    /**
+     * Applies the operator to vector in and writes the result into out. The vectors should not overlap.
+     *
+     * @param in  Vector of size width.
+     * @param out Vector of size height, out = A * in.
+     */
+    public abstract void apply(Vector in, Vector out);
+
+    /**
+     * Applies the operator as {@link #apply(Vector, Vector)}, splitting the rows between the threads
+     * of execution, if the operator supports it. By default the operator is applied in the calling thread.
+     *
+     * @param in        Vector of size width.
+     * @param out       Vector of size height, out = A * in.
+     * @param execution How to run the rows.
+     */
+    public default void apply(Vector in, Vector out, ParallelExecution execution) {
+        apply(in, out);
+    }
+
+    /**
+     * Multiplies the operator by vector v.
+     *
+     * @param v Vector to multiply by.
+     * @return Vector y = Av.
+     */
+    public default Vector multiply(Vector v) {
+        Vector result = Vector.zero(getHeight());
+        apply(v, result);
+        return result;
+    }
+
+    public default boolean hasTranspose() {
+        return false;
+    }
+
+    /**
+     * Applies the transposed operator to vector in and writes the result into out.
+     * The vectors should not overlap.
+     *
+     * @param in  Vector of size height.
+     * @param out Vector of size width, out = A^T * in.
+     * @throws UnsupportedOperationException if the operator has no transpose.
+     */
+    public default void applyTransposed(Vector in, Vector out) {
+        throw new UnsupportedOperationException("The operator does not support transposed product.");
+    }
+
+    /**
+     * Multiplies the transposed operator by vector v without building the transposed operator.
+     *
+     * @param v Vector to multiply by.
+     * @return Vector y = A^T v.
+     * @throws UnsupportedOperationException if the operator has no transpose.
+     */
+    public default Vector multiplyTransposed(Vector v) {
+        Vector result = Vector.zero(getWidth());
+        applyTransposed(v, result);
+        return result;
+    }
+
+    public default boolean hasDiagonal() {
+        return false;
+    }
+
+    /**
+     * @return a_i = A_i_i {1..n}
+     * @throws UnsupportedOperationException if the operator does not provide its diagonal.
+     */
+    public default double[] getDiagonal() {
+        throw new UnsupportedOperationException("The operator does not provide its diagonal.");
+    }
+
+    /**
+     * Builds the operator as a dense matrix, applying it to every unit vector. It costs
+     * width applications and O(height * width) memory, so it is meant for small operators only.
+     *
+     * @return The operator as a dense matrix.
+     */
+    public default Matrix toDense() {
+        Matrix result = Matrix.zero(getHeight(), getWidth());
+        double[] unit = new double[getWidth()];
+        for (int j = 0; j < unit.length; ++j) {
+            unit[j] = 1;
+            apply(new Vector(unit), result.getColumn(j));
+            unit[j] = 0;
+        }
+        return result;
+    }
+
+}
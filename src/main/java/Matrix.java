@@ -1,18 +1,29 @@
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 
 /**
  * Represents a rectangular matrix of doubles
  * <p/>
+ * Items are stored row by row in one contiguous array: item [i, j] is data[offset + i * stride + j].
+ * Row, column and sub-matrix views share that array with the matrix they were taken from.
+ * <p/>
  * Created by Sergey on 19.02.2015.
  */
-public class Matrix {
+public class Matrix implements LinearOperator {
 
-    private double[][] components;
+    final double[] data;
+    final int offset;
+    final int stride;
+    private final int height;
+    private final int width;
 
     public double[][] getComponents() {
-        double[][] result = new double[getHeight()][];
+        double[][] result = new double[height][];
         for (int i = 0; i < result.length; ++i) {
-            result[i] = components[i].clone();
+            result[i] = new double[width];
+            System.arraycopy(data, offset + i * stride, result[i], 0, width);
         }
         return result;
     }
@@ -25,7 +36,66 @@ public class Matrix {
             if (component.length != width)
                 throw new IllegalArgumentException("All of the matrix rows should have the same length.");
         }
-        this.components = components;
+        this.height = components.length;
+        this.width = width;
+        this.stride = width;
+        this.offset = 0;
+        this.data = new double[height * width];
+        for (int i = 0; i < height; ++i) {
+            System.arraycopy(components[i], 0, data, i * width, width);
+        }
+    }
+
+    /**
+     * Wraps a row-major array without copying it.
+     *
+     * @param height Matrix height.
+     * @param width  Matrix width.
+     * @param data   Array of size height * width, item [i, j] is data[i * width + j].
+     */
+    Matrix(int height, int width, double[] data) {
+        this(data, 0, height, width, width);
+    }
+
+    Matrix(double[] data, int offset, int height, int width, int stride) {
+        if (height <= 0 || width <= 0)
+            throw new IllegalArgumentException("Matrix should have non-zero size.");
+        if (offset < 0 || stride < width || offset + (height - 1) * stride + width > data.length)
+            throw new IllegalArgumentException("Matrix does not fit into the given array.");
+        this.data = data;
+        this.offset = offset;
+        this.height = height;
+        this.width = width;
+        this.stride = stride;
+    }
+
+    /**
+     * Copies the items into a new contiguous row-major array.
+     *
+     * @return Array of size height * width, item [i, j] is at i * width + j.
+     */
+    double[] toArray() {
+        if (offset == 0 && stride == width && data.length == height * width)
+            return data.clone();
+        double[] result = new double[height * width];
+        for (int i = 0; i < height; ++i) {
+            System.arraycopy(data, offset + i * stride, result, i * width, width);
+        }
+        return result;
+    }
+
+    @Override
+    public Matrix toDense() {
+        return this;
+    }
+
+    /**
+     * Makes a compact copy of this matrix, not sharing storage with it.
+     *
+     * @return A = this
+     */
+    public Matrix copy() {
+        return new Matrix(height, width, toArray());
     }
 
     @Override
@@ -67,6 +137,28 @@ public class Matrix {
         return true;
     }
 
+    /**
+     * Calculates the matrix l-norm.
+     *
+     * @return ||A||_1 = max {1..m} { Sum {1..n} |a_ij| }
+     */
+    public double norm1() {
+        double[] sums = new double[width];
+        for (int i = 0; i < height; ++i) {
+            int row = offset + i * stride;
+            for (int j = 0; j < width; ++j) {
+                sums[j] += Math.abs(data[row + j]);
+            }
+        }
+        double max = 0.;
+        for (double sum : sums) {
+            if (sum > max) {
+                max = sum;
+            }
+        }
+        return max;
+    }
+
     /**
      * Calculates the matrix m-norm.
      *
@@ -87,12 +179,14 @@ public class Matrix {
     }
 
     /**
-     * Calculates the matrix conditionality value.
+     * Estimates the matrix conditionality value from the LU decomposition with {@link ConditionEstimator},
+     * without building the inverse matrix.
      *
-     * @return Cond A = ||A|| * ||A^-1||
+     * @return Cond A = ||A|| * ||A^-1||, a lower bound, usually exact or within a factor of 3;
+     * infinity if the matrix is singular.
      */
     public double conditionality() {
-        return norm() * reversed().norm();
+        return ConditionEstimator.conditionalityInfinity(this, new LUDecomposition(this));
     }
 
     /**
@@ -103,15 +197,17 @@ public class Matrix {
      * @return Matrix item at i-th row, j-th column
      */
     public double get(int i, int j) {
-        return components[i][j];
+        return data[offset + i * stride + j];
     }
 
+    @Override
     public int getWidth() {
-        return components[0].length;
+        return width;
     }
 
+    @Override
     public int getHeight() {
-        return components.length;
+        return height;
     }
 
     /**
@@ -123,14 +219,16 @@ public class Matrix {
     public Matrix add(Matrix m) {
         if (getHeight() != m.getHeight() || getWidth() != m.getWidth())
             throw new IllegalArgumentException("Matrix should have the same size to be added.");
-        double[][] newComponents = new double[getWidth()][];
-        for (int i = 0; i < getHeight(); ++i) {
-            newComponents[i] = new double[getWidth()];
-            for (int j = 0; j < newComponents[i].length; ++j) {
-                newComponents[i][j] = get(i, j) + m.get(i, j);
+        double[] result = new double[height * width];
+        for (int i = 0; i < height; ++i) {
+            int row = offset + i * stride;
+            int mRow = m.offset + i * m.stride;
+            int resultRow = i * width;
+            for (int j = 0; j < width; ++j) {
+                result[resultRow + j] = data[row + j] + m.data[mRow + j];
             }
         }
-        return new Matrix(newComponents);
+        return new Matrix(height, width, result);
     }
 
     public Matrix subtract(Matrix b) {
@@ -138,24 +236,24 @@ public class Matrix {
     }
 
     /**
-     * Multiplies this matrix by another one.
+     * Multiplies this matrix by another one with the cache-blocked kernel of {@link MatrixMultiplication}.
      *
      * @param m Matrix to multiply this by.
      * @return A = this * m;
      */
     public Matrix multiply(Matrix m) {
-        if (getWidth() != m.getHeight())
-            throw new IllegalArgumentException("Matrices cannot be multiplied due to their dimensions.");
-        double[][] newComponents = new double[getHeight()][];
-        for (int i = 0; i < newComponents.length; ++i) {
-            newComponents[i] = new double[m.getWidth()];
-            for (int j = 0; j < newComponents[i].length; ++j) {
-                for (int k = 0; k < getWidth(); ++k) {
-                    newComponents[i][j] += get(i, k) * m.get(k, j);
-                }
-            }
-        }
-        return new Matrix(newComponents);
+        return MatrixMultiplication.DEFAULT.multiply(this, m);
+    }
+
+    /**
+     * Multiplies this matrix by another one, splitting the tiles of the result between the threads of execution.
+     *
+     * @param m         Matrix to multiply this by.
+     * @param execution How to run the tiles.
+     * @return A = this * m;
+     */
+    public Matrix multiply(Matrix m, ParallelExecution execution) {
+        return new MatrixMultiplication(execution).multiply(this, m);
     }
 
     /**
@@ -165,14 +263,15 @@ public class Matrix {
      * @return A = this * a
      */
     public Matrix multiply(double a) {
-        double[][] newComponents = new double[getHeight()][];
-        for (int i = 0; i < newComponents.length; ++i) {
-            newComponents[i] = new double[getWidth()];
-            for (int j = 0; j < newComponents[i].length; ++j) {
-                newComponents[i][j] = get(i, j) * a;
+        double[] result = new double[height * width];
+        for (int i = 0; i < height; ++i) {
+            int row = offset + i * stride;
+            int resultRow = i * width;
+            for (int j = 0; j < width; ++j) {
+                result[resultRow + j] = data[row + j] * a;
             }
         }
-        return new Matrix(newComponents);
+        return new Matrix(height, width, result);
     }
 
     /**
@@ -181,16 +280,88 @@ public class Matrix {
      * @param v Vector to multiply the matrix by.
      * @return Vector y = Av.
      */
+    @Override
     public Vector multiply(Vector v) {
-        if (getWidth() != v.getDimensions())
+        Vector result = Vector.zero(height);
+        apply(v, result);
+        return result;
+    }
+
+    /**
+     * Multiplies the matrix by vector v as Av, splitting the rows between the threads of execution.
+     *
+     * @param v         Vector to multiply the matrix by.
+     * @param execution How to run the rows.
+     * @return Vector y = Av.
+     */
+    public Vector multiply(Vector v, ParallelExecution execution) {
+        Vector result = Vector.zero(height);
+        apply(v, result, execution);
+        return result;
+    }
+
+    @Override
+    public void apply(Vector in, Vector out) {
+        if (getWidth() != in.getDimensions() || getHeight() != out.getDimensions())
             throw new IllegalArgumentException("Vector cannot be multiplied due to its dimensions.");
-        double[] newComponents = new double[getHeight()];
-        for (int i = 0; i < newComponents.length; ++i) {
-            for (int j = 0; j < getWidth(); ++j) {
-                newComponents[i] += get(i, j) * v.get(j);
+        if (in.stride == 1) {
+            applyRows(in.data, in.offset, out, 0, height);
+        } else {
+            applyRows(in.getComponents(), 0, out, 0, height);
+        }
+    }
+
+    @Override
+    public void apply(final Vector in, final Vector out, ParallelExecution execution) {
+        if (getWidth() != in.getDimensions() || getHeight() != out.getDimensions())
+            throw new IllegalArgumentException("Vector cannot be multiplied due to its dimensions.");
+        final double[] x = in.stride == 1 ? in.data : in.getComponents();
+        final int xOffset = in.stride == 1 ? in.offset : 0;
+        execution.forRange(height, (from, to) -> applyRows(x, xOffset, out, from, to));
+    }
+
+    private void applyRows(double[] x, int xOffset, Vector out, int from, int to) {
+        for (int i = from; i < to; ++i) {
+            int row = offset + i * stride;
+            double sum = 0;
+            for (int j = 0; j < width; ++j) {
+                sum += data[row + j] * x[xOffset + j];
             }
+            out.set(i, sum);
         }
-        return new Vector(newComponents);
+    }
+
+    @Override
+    public boolean hasTranspose() {
+        return true;
+    }
+
+    /**
+     * Multiplies the transponed matrix by vector in as A^T in, reading the matrix row by row.
+     *
+     * @param in  Vector to multiply the transponed matrix by.
+     * @param out Vector y = A^T in.
+     */
+    @Override
+    public void applyTransposed(Vector in, Vector out) {
+        if (getHeight() != in.getDimensions() || getWidth() != out.getDimensions())
+            throw new IllegalArgumentException("Vector cannot be multiplied due to its dimensions.");
+        out.fill(0);
+        for (int i = 0; i < height; ++i) {
+            double factor = in.get(i);
+            if (factor == 0) {
+                continue;
+            }
+            int row = offset + i * stride;
+            for (int j = 0; j < width; ++j) {
+                out.data[out.offset + j * out.stride] += data[row + j] * factor;
+            }
+        }
+    }
+
+    @Override
+    public boolean hasDiagonal() {
+        return true;
     }
 
     /**
@@ -198,6 +369,7 @@ public class Matrix {
      *
      * @return a_i = A_i_i {1..n}
      */
+    @Override
     public double[] getDiagonal() {
         double[] result = new double[getHeight()];
         for (int i = 0; i < getHeight(); ++i) {
@@ -207,7 +379,7 @@ public class Matrix {
     }
 
     /**
-     * Calculates square matrix determinant.
+     * Calculates square matrix determinant via LU decomposition in O(n^3).
      *
      * @return det(this)
      */
@@ -215,40 +387,18 @@ public class Matrix {
         if (getHeight() != getWidth()) {
             throw new UnsupportedOperationException("Determinants for non-square matrices are not implemented");
         }
-        if (getHeight() == 1) {
-            return get(0, 0);
-        }
-        if (getHeight() == 2) {
-            return get(0, 0) * get(1, 1) - get(1, 0) * get(0, 1);
-        }
-        double result = 0;
-        for (int i = 0; i < getHeight(); ++i) {
-            result += (i % 2 == 0 ? 1 : -1) * get(i, 0) * minor(i, 0).determinant();
-        }
-        return result;
+        return new LUDecomposition(this).determinant();
     }
 
     public static final double REVERSE_DETERMINANT_EPSILON = 1e-18;
 
     /**
-     * Calculates the reversed matrix A^-1, so that A*A^-1 = E.
+     * Calculates the reversed matrix A^-1, so that A*A^-1 = E, via LU decomposition in O(n^3).
      *
-     * @return null, if this has determinant approximately equal to zero. this ^ -1 otherwise.
+     * @return null, if this is singular (some LU pivot is approximately equal to zero). this ^ -1 otherwise.
      */
     public Matrix reversed() {
-        if (Math.abs(determinant()) < REVERSE_DETERMINANT_EPSILON)
-            return null;
-        double[][] newComponents = new double[getWidth()][];
-        for (int i = 0; i < newComponents.length; ++i) {
-            newComponents[i] = new double[getHeight()];
-        }
-        double det = determinant();
-        for (int i = 0; i < getHeight(); ++i) {
-            for (int j = 0; j < getWidth(); ++j) {
-                newComponents[j][i] = ((i + j) % 2 == 0 ? 1 : -1) * minor(i, j).determinant() / det;
-            }
-        }
-        return new Matrix(newComponents);
+        return new LUDecomposition(this).inverse();
     }
 
     /**
@@ -257,14 +407,14 @@ public class Matrix {
      * @return [a_i_j] = [this_j_i]
      */
     public Matrix transponed() {
-        double[][] components = new double[getWidth()][];
-        for (int i = 0; i < components.length; ++i) {
-            components[i] = new double[getHeight()];
-            for (int j = 0; j < components[i].length; ++j) {
-                components[i][j] = get(j, i);
+        double[] result = new double[width * height];
+        for (int i = 0; i < height; ++i) {
+            int row = offset + i * stride;
+            for (int j = 0; j < width; ++j) {
+                result[j * height + i] = data[row + j];
             }
         }
-        return new Matrix(components);
+        return new Matrix(width, height, result);
     }
 
     /**
@@ -275,14 +425,13 @@ public class Matrix {
      * @return Matrix of size [n-1 x n-1]
      */
     public Matrix minor(int a, int b) {
-        double[][] newComponents = new double[getHeight() - 1][];
-        for (int i = 0; i < newComponents.length; ++i) {
-            newComponents[i] = new double[getWidth() - 1];
-            for (int j = 0; j < newComponents[i].length; ++j) {
-                newComponents[i][j] = get(i < a ? i : i + 1, j < b ? j : j + 1);
+        double[] result = new double[(height - 1) * (width - 1)];
+        for (int i = 0; i < height - 1; ++i) {
+            for (int j = 0; j < width - 1; ++j) {
+                result[i * (width - 1) + j] = get(i < a ? i : i + 1, j < b ? j : j + 1);
             }
         }
-        return new Matrix(newComponents);
+        return new Matrix(height - 1, width - 1, result);
     }
 
     /**
@@ -292,14 +441,11 @@ public class Matrix {
      * @return A of size [n x n] with A[i][j] = "i == j"
      */
     public static Matrix unit(int dimensions) {
-        double[][] components = new double[dimensions][];
-        for (int i = 0; i < components.length; ++i) {
-            components[i] = new double[dimensions];
-            for (int j = 0; j < components[i].length; ++j) {
-                components[i][j] = i == j ? 1. : 0.;
-            }
+        double[] components = new double[dimensions * dimensions];
+        for (int i = 0; i < dimensions; ++i) {
+            components[i * dimensions + i] = 1.;
         }
-        return new Matrix(components);
+        return new Matrix(dimensions, dimensions, components);
     }
 
     public static Matrix zero(int dimensions) {
@@ -314,11 +460,7 @@ public class Matrix {
      * @return Matrix filled with zeros of size [height x width].
      */
     public static Matrix zero(int height, int width) {
-        double[][] components = new double[height][];
-        for (int i = 0; i < components.length; ++i) {
-            components[i] = new double[width];
-        }
-        return new Matrix(components);
+        return new Matrix(height, width, new double[height * width]);
     }
 
     public static final int TO_STRING_DIGITS = 3;
@@ -336,60 +478,114 @@ public class Matrix {
     }
 
     public static Matrix byDiagonal(double[] trace) {
-        double[][] components = new double[trace.length][];
-        for (int i = 0; i < components.length; ++i) {
-            components[i] = new double[trace.length];
-            components[i][i] = trace[i];
+        double[] components = new double[trace.length * trace.length];
+        for (int i = 0; i < trace.length; ++i) {
+            components[i * trace.length + i] = trace[i];
         }
-        return new Matrix(components);
+        return new Matrix(trace.length, trace.length, components);
     }
 
+    /**
+     * Parses a matrix written row by row in braces: {a11, a12}, {a21, a22}.
+     * The numbers are read by {@link NumberTokenizer}, without allocating per item.
+     *
+     * @throws NumberFormatException if the string is malformed.
+     */
     public static Matrix parse(String s) {
-        ArrayList<Integer> splitPoints = new ArrayList<>();
-        int bracesBalance = 0;
-        for (int i = 0; i < s.length(); ++i) {
-            if (s.charAt(i) == '{') {
-                ++bracesBalance;
-            } else if (s.charAt(i) == '}') {
-                --bracesBalance;
-            } else if (s.charAt(i) == ',' && bracesBalance == 0) {
-                splitPoints.add(i);
-            }
-        }
-        splitPoints.add(s.length());
-        double[][] components = new double[splitPoints.size()][];
-        for (int i = 0; i < splitPoints.size(); ++i) {
-            String[] line = s.substring(i == 0 ? 0 : splitPoints.get(i - 1) + 1, splitPoints.get(i) - 1).trim()
-                    .replaceAll("[\\}\\{,]", " ").split("\\s+");
-            components[i] = new double[line.length - 1];
-            for (int j = 1; j < line.length; ++j) {
-                components[i][j-1] = Double.parseDouble(line[j]);
+        NumberTokenizer tokens = new NumberTokenizer(new StringReader(s));
+        try {
+            double[] items = new double[16];
+            int count = 0;
+            int height = 0;
+            int width = 0;
+            int c = tokens.peek();
+            while (c >= 0) {
+                if (c != '{')
+                    throw tokens.error("'{' expected");
+                tokens.skip();
+                int rowStart = count;
+                while ((c = tokens.peek()) != '}') {
+                    if (c == ',') {
+                        tokens.skip();
+                        continue;
+                    }
+                    if (count == items.length) {
+                        items = Arrays.copyOf(items, count * 2);
+                    }
+                    items[count++] = tokens.nextDouble();
+                }
+                tokens.skip();
+                if (height == 0) {
+                    width = count - rowStart;
+                } else if (count - rowStart != width)
+                    throw new IllegalArgumentException("All of the matrix rows should have the same length.");
+                ++height;
+                c = tokens.peek();
+                if (c == ',') {
+                    tokens.skip();
+                    c = tokens.peek();
+                }
             }
+            if (count == 0)
+                throw new IllegalArgumentException("Matrix components should be non-null and have non-zero length.");
+            return new Matrix(height, width, Arrays.copyOf(items, count));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return new Matrix(components);
     }
 
     /**
      * returns a Vector-representation of specified row
      * for gauss
+     * <p/>
+     * The vector is a view sharing storage with this matrix, no items are copied.
      * @param i
      * @return
      */
     public Vector getRow(int i)
     {
-        if(i < 0 || i >= components.length)
+        if(i < 0 || i >= height)
             throw new IllegalArgumentException("invalid row number\n");
-        return new Vector(components[i].clone());
+        return new Vector(data, offset + i * stride, 1, width);
+    }
+
+    /**
+     * Returns a view of the specified column, sharing storage with this matrix.
+     *
+     * @param j Column
+     * @return (A_0_j, A_1_j, ..., A_n_j)
+     */
+    public Vector getColumn(int j) {
+        if (j < 0 || j >= width)
+            throw new IllegalArgumentException("invalid column number\n");
+        return new Vector(data, offset + j, stride, height);
+    }
+
+    /**
+     * Returns a view of the rectangular block of this matrix, sharing storage with it.
+     *
+     * @param row    First row of the block.
+     * @param column First column of the block.
+     * @param height Block height.
+     * @param width  Block width.
+     * @return [a_i_j] = [this_(row + i)_(column + j)] of size [height x width]
+     */
+    public Matrix subMatrix(int row, int column, int height, int width) {
+        if (row < 0 || column < 0 || row + height > this.height || column + width > this.width)
+            throw new IllegalArgumentException("Sub-matrix should lie inside the matrix.");
+        return new Matrix(data, offset + row * stride + column, height, width, stride);
     }
 
     /**
      * for gauss
      * @param i
      * @return
+     * @deprecated Copies the whole matrix on every call; GaussSolver eliminates in place with GaussElimination.
      */
+    @Deprecated
     public Matrix excludeVariableForward(int i)
     {
-        if(i < 0 || i >= components[0].length)
+        if(i < 0 || i >= width)
             throw new IllegalArgumentException("invalid row number\n");
 
         double[][] newComponents = getComponents();
@@ -398,7 +594,7 @@ public class Matrix {
         Vector addition;
         Vector temp;
 
-        for(int j=i+1; j<components.length; ++j)
+        for(int j=i+1; j<height; ++j)
         {
             addition = fixedRow.multiply(-get(j,i)/get(i,i));
             temp = getRow(j).add(addition);
@@ -412,10 +608,12 @@ public class Matrix {
      * for gauss
      * @param i
      * @return
+     * @deprecated Copies the whole matrix on every call; GaussSolver eliminates in place with GaussElimination.
      */
+    @Deprecated
     public Matrix excludeVariableBackward(int i)
     {
-        if(i < 0 || i >= components[0].length)
+        if(i < 0 || i >= width)
             throw new IllegalArgumentException("invalid row number\n");
 
         double[][] newComponents = getComponents();
@@ -446,13 +644,13 @@ public class Matrix {
      */
     public static Matrix getExtended(Matrix a, Vector b)
     {
-        double[][] components = new double[a.getHeight()][a.getWidth()+1];
+        int width = a.getWidth() + 1;
+        double[] components = new double[a.getHeight() * width];
         for (int i = 0; i < a.getHeight(); ++i) {
-            for(int j=0; j< a.getWidth(); ++j)
-                components[i][j] = a.get(i, j);
-            components[i][components[i].length-1] = b.get(i);
+            System.arraycopy(a.data, a.offset + i * a.stride, components, i * width, a.getWidth());
+            components[i * width + width - 1] = b.get(i);
         }
-        return new Matrix(components);
+        return new Matrix(a.getHeight(), width, components);
     }
 }
 
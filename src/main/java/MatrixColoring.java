@@ -0,0 +1,104 @@
+import java.util.Arrays;
+
+/**
+ * Coloring of the adjacency graph of a square sparse matrix: rows i and j are adjacent
+ * if A_i_j or A_j_i is stored, and adjacent rows always get different colors.
+ * <p>
+ * Rows of one color do not depend on each other, so a Seidel sweep can update all of them
+ * at once. The coloring is greedy in natural order, which gives the red-black ordering
+ * (two colors) for 5-point grid stencils.
+ */
+public final class MatrixColoring {
+
+    private final int[] colorPointers;
+    private final int[] rows;
+
+    private MatrixColoring(int[] colorPointers, int[] rows) {
+        this.colorPointers = colorPointers;
+        this.rows = rows;
+    }
+
+    public static MatrixColoring of(SparseMatrix a) {
+        if (a.getHeight() != a.getWidth())
+            throw new IllegalArgumentException("Coloring is only defined for square matrices.");
+        int n = a.getHeight();
+
+        // Transposed pattern, to see the rows which refer to row i as well as the rows row i refers to.
+        int[] transposedPointers = new int[n + 1];
+        for (int k = 0; k < a.getNonZeros(); ++k) {
+            ++transposedPointers[a.columns[k] + 1];
+        }
+        for (int i = 0; i < n; ++i) {
+            transposedPointers[i + 1] += transposedPointers[i];
+        }
+        int[] transposedRows = new int[a.getNonZeros()];
+        int[] fill = transposedPointers.clone();
+        for (int i = 0; i < n; ++i) {
+            for (int k = a.rowPointers[i]; k < a.rowPointers[i + 1]; ++k) {
+                transposedRows[fill[a.columns[k]]++] = i;
+            }
+        }
+
+        int[] colorOf = new int[n];
+        int[] lastUsedBy = new int[n + 1];
+        Arrays.fill(lastUsedBy, -1);
+        int colors = 0;
+        for (int i = 0; i < n; ++i) {
+            for (int k = a.rowPointers[i]; k < a.rowPointers[i + 1]; ++k) {
+                int j = a.columns[k];
+                if (j < i) {
+                    lastUsedBy[colorOf[j]] = i;
+                }
+            }
+            for (int k = transposedPointers[i]; k < transposedPointers[i + 1]; ++k) {
+                int j = transposedRows[k];
+                if (j < i) {
+                    lastUsedBy[colorOf[j]] = i;
+                }
+            }
+            int color = 0;
+            while (lastUsedBy[color] == i) {
+                ++color;
+            }
+            colorOf[i] = color;
+            colors = Math.max(colors, color + 1);
+        }
+
+        int[] colorPointers = new int[colors + 1];
+        for (int i = 0; i < n; ++i) {
+            ++colorPointers[colorOf[i] + 1];
+        }
+        for (int c = 0; c < colors; ++c) {
+            colorPointers[c + 1] += colorPointers[c];
+        }
+        int[] rows = new int[n];
+        int[] next = colorPointers.clone();
+        for (int i = 0; i < n; ++i) {
+            rows[next[colorOf[i]]++] = i;
+        }
+        return new MatrixColoring(colorPointers, rows);
+    }
+
+    public int getColors() {
+        return colorPointers.length - 1;
+    }
+
+    /**
+     * @return Rows of the given color, ascending.
+     */
+    public int[] getRows(int color) {
+        return Arrays.copyOfRange(rows, colorPointers[color], colorPointers[color + 1]);
+    }
+
+    int colorStart(int color) {
+        return colorPointers[color];
+    }
+
+    int colorEnd(int color) {
+        return colorPointers[color + 1];
+    }
+
+    int row(int position) {
+        return rows[position];
+    }
+}
@@ -0,0 +1,241 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Reads and writes matrices in Matrix Market exchange format (.mtx).
+ * <p>
+ * Coordinate files are read into {@link SparseMatrix}, array files into {@link Matrix}. The fields
+ * real, double, integer and pattern (all the items are 1) are supported, with general, symmetric and
+ * skew-symmetric matrices; complex ones are not. The items go from the stream straight into
+ * the arrays of the matrix through {@link NumberTokenizer}, which does not allocate per item.
+ * The streams are neither buffered nor closed here: the tokenizer buffers what it reads itself.
+ */
+public final class MatrixMarket {
+
+    public static final String BANNER = "%%MatrixMarket";
+
+    private enum Symmetry {
+        GENERAL, SYMMETRIC, SKEW_SYMMETRIC
+    }
+
+    /**
+     * Characters collected before passing them to the writer.
+     */
+    private static final int WRITE_BUFFER = 8192;
+
+    private MatrixMarket() {
+    }
+
+    /**
+     * @return {@link SparseMatrix} for a coordinate file, {@link Matrix} for an array one.
+     * @throws IOException if reading fails or the file is malformed.
+     */
+    public static LinearOperator read(Reader reader) throws IOException {
+        NumberTokenizer tokens = new NumberTokenizer(reader);
+        try {
+            String[] header = tokens.nextLine().trim().toLowerCase(Locale.ROOT).split("\\s+");
+            if (header.length != 5 || !header[0].equals(BANNER.toLowerCase(Locale.ROOT))
+                    || !header[1].equals("matrix"))
+                throw new IOException("Not a Matrix Market matrix file.");
+            boolean coordinate = header[2].equals("coordinate");
+            if (!coordinate && !header[2].equals("array"))
+                throw new IOException("Unknown format " + header[2] + ".");
+            boolean pattern = header[3].equals("pattern");
+            if (!pattern && !header[3].equals("real") && !header[3].equals("double") && !header[3].equals("integer"))
+                throw new IOException("Unsupported field " + header[3] + ".");
+            if (pattern && !coordinate)
+                throw new IOException("Array files cannot have pattern field.");
+            Symmetry symmetry;
+            try {
+                symmetry = Symmetry.valueOf(header[4].toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unsupported symmetry " + header[4] + ".");
+            }
+            while (tokens.peek() == '%') {
+                tokens.skipLine();
+            }
+            int height = tokens.nextInt();
+            int width = tokens.nextInt();
+            if (height <= 0 || width <= 0)
+                throw new IOException("Matrix should have non-zero size.");
+            if (symmetry != Symmetry.GENERAL && height != width)
+                throw new IOException("Symmetric matrix should be square.");
+            return coordinate ? readCoordinate(tokens, height, width, pattern, symmetry)
+                    : readArray(tokens, height, width, symmetry);
+        } catch (NumberFormatException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads a file in UTF-8, see {@link #read(Reader)}.
+     */
+    public static LinearOperator read(InputStream in) throws IOException {
+        return read(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a matrix as a dense one, whatever the format of the file.
+     */
+    public static Matrix readMatrix(Reader reader) throws IOException {
+        return read(reader).toDense();
+    }
+
+    private static SparseMatrix readCoordinate(NumberTokenizer tokens, int height, int width, boolean pattern,
+                                               Symmetry symmetry) throws IOException {
+        int entries = tokens.nextInt();
+        long capacity = symmetry == Symmetry.GENERAL ? entries : 2L * entries;
+        if (entries < 0 || capacity > Integer.MAX_VALUE - 8)
+            throw new IOException("Invalid number of entries " + entries + ".");
+        int[] rows = new int[(int) capacity];
+        int[] columns = new int[(int) capacity];
+        double[] values = new double[(int) capacity];
+        int count = 0;
+        for (int k = 0; k < entries; ++k) {
+            int i = tokens.nextInt() - 1;
+            int j = tokens.nextInt() - 1;
+            double value = pattern ? 1 : tokens.nextDouble();
+            if (i < 0 || i >= height || j < 0 || j >= width)
+                throw new IOException("Line " + tokens.getLine() + ": entry (" + (i + 1) + ", " + (j + 1)
+                        + ") is out of matrix bounds.");
+            rows[count] = i;
+            columns[count] = j;
+            values[count] = value;
+            ++count;
+            if (symmetry != Symmetry.GENERAL && i != j) {
+                rows[count] = j;
+                columns[count] = i;
+                values[count] = symmetry == Symmetry.SYMMETRIC ? value : -value;
+                ++count;
+            }
+        }
+        return SparseMatrix.fromTriplets(height, width, rows, columns, values, count);
+    }
+
+    /**
+     * Array files list the items column by column; symmetric ones only list the lower triangle,
+     * skew-symmetric ones the part strictly below the diagonal.
+     */
+    private static Matrix readArray(NumberTokenizer tokens, int height, int width, Symmetry symmetry)
+            throws IOException {
+        double[] data = new double[height * width];
+        for (int j = 0; j < width; ++j) {
+            int first = symmetry == Symmetry.GENERAL ? 0 : symmetry == Symmetry.SYMMETRIC ? j : j + 1;
+            for (int i = first; i < height; ++i) {
+                double value = tokens.nextDouble();
+                data[i * width + j] = value;
+                if (symmetry != Symmetry.GENERAL) {
+                    data[j * width + i] = symmetry == Symmetry.SYMMETRIC ? value : -value;
+                }
+            }
+        }
+        return new Matrix(height, width, data);
+    }
+
+    /**
+     * Writes a {@link SparseMatrix} in coordinate format and any other operator in array format,
+     * as real general matrices. The items are written exactly, so reading them gives the same matrix.
+     */
+    public static void write(Writer writer, LinearOperator a) throws IOException {
+        Output out = new Output(writer);
+        if (a instanceof SparseMatrix) {
+            SparseMatrix m = (SparseMatrix) a;
+            out.append(BANNER).append(" matrix coordinate real general\n");
+            out.append(m.getHeight()).append(' ').append(m.getWidth()).append(' ').append(m.getNonZeros()).newLine();
+            for (int i = 0; i < m.getHeight(); ++i) {
+                for (int k = m.rowPointers[i]; k < m.rowPointers[i + 1]; ++k) {
+                    out.append(i + 1).append(' ').append(m.columns[k] + 1).append(' ').append(m.values[k]).newLine();
+                }
+            }
+        } else {
+            Matrix m = a.toDense();
+            out.append(BANNER).append(" matrix array real general\n");
+            out.append(m.getHeight()).append(' ').append(m.getWidth()).newLine();
+            for (int j = 0; j < m.getWidth(); ++j) {
+                for (int i = 0; i < m.getHeight(); ++i) {
+                    out.append(m.data[m.offset + i * m.stride + j]).newLine();
+                }
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes a vector as an array of one column.
+     */
+    public static void write(Writer writer, Vector v) throws IOException {
+        Output out = new Output(writer);
+        out.append(BANNER).append(" matrix array real general\n");
+        out.append(v.getDimensions()).append(" 1").newLine();
+        for (int i = 0; i < v.getDimensions(); ++i) {
+            out.append(v.get(i)).newLine();
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes a matrix in UTF-8, see {@link #write(Writer, LinearOperator)}. The stream is flushed, not closed.
+     */
+    public static void write(OutputStream out, LinearOperator a) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        write(writer, a);
+        writer.flush();
+    }
+
+    /**
+     * Formats lines into one reused builder and passes them to the writer in blocks,
+     * so nothing is allocated per item.
+     */
+    private static class Output {
+
+        private final Writer writer;
+        private final StringBuilder text = new StringBuilder(WRITE_BUFFER + 64);
+        private final char[] block = new char[WRITE_BUFFER + 64];
+
+        Output(Writer writer) {
+            this.writer = writer;
+        }
+
+        Output append(String s) {
+            text.append(s);
+            return this;
+        }
+
+        Output append(char c) {
+            text.append(c);
+            return this;
+        }
+
+        Output append(int value) {
+            text.append(value);
+            return this;
+        }
+
+        Output append(double value) {
+            text.append(value);
+            return this;
+        }
+
+        void newLine() throws IOException {
+            text.append('\n');
+            if (text.length() >= WRITE_BUFFER) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            int length = text.length();
+            char[] chars = length <= block.length ? block : new char[length];
+            text.getChars(0, length, chars, 0);
+            writer.write(chars, 0, length);
+            text.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Multiplies dense matrices, C = AB.
+ * <p>
+ * The kernel is tiled: C is split into tiles of TILE_HEIGHT rows, which are independent and are
+ * run by {@link ParallelExecution}; inside a tile the product goes over blocks of TILE_DEPTH rows and
+ * TILE_WIDTH columns of B, so that a block of B stays in cache while all the rows of the tile use it.
+ * Four rows of B are combined per pass over a row of C, with the four factors from A kept in registers,
+ * so every item of C is loaded and stored once per four multiply-adds instead of once per one.
+ * <p>
+ * When all the dimensions are at least strassenThreshold, the product is split into 2x2 blocks
+ * and computed with Strassen's seven block products instead of eight, recursively.
+ * This is faster for large matrices, but the rounding error grows slightly with every level.
+ */
+public final class MatrixMultiplication {
+
+    public static final int TILE_HEIGHT = 64;
+    public static final int TILE_DEPTH = 128;
+    public static final int TILE_WIDTH = 256;
+
+    public static final int DEFAULT_STRASSEN_THRESHOLD = 1024;
+
+    public static final MatrixMultiplication DEFAULT =
+            new MatrixMultiplication(ParallelExecution.SEQUENTIAL, DEFAULT_STRASSEN_THRESHOLD);
+
+    public final ParallelExecution execution;
+    public final int strassenThreshold;
+
+    /**
+     * @param execution         How to run the tiles of the result.
+     * @param strassenThreshold Minimal dimension to use Strassen's method for,
+     *                          Integer.MAX_VALUE to always use the tiled kernel.
+     */
+    public MatrixMultiplication(ParallelExecution execution, int strassenThreshold) {
+        if (strassenThreshold < 2)
+            throw new IllegalArgumentException("Strassen threshold should be at least 2.");
+        this.execution = execution;
+        this.strassenThreshold = strassenThreshold;
+    }
+
+    public MatrixMultiplication(ParallelExecution execution) {
+        this(execution, DEFAULT_STRASSEN_THRESHOLD);
+    }
+
+    /**
+     * @return C = a * b
+     */
+    public Matrix multiply(Matrix a, Matrix b) {
+        if (a.getWidth() != b.getHeight())
+            throw new IllegalArgumentException("Matrices cannot be multiplied due to their dimensions.");
+        if (Math.min(a.getHeight(), Math.min(a.getWidth(), b.getWidth())) >= strassenThreshold)
+            return strassen(a, b);
+        double[] c = new double[a.getHeight() * b.getWidth()];
+        tiled(a, b, c);
+        return new Matrix(a.getHeight(), b.getWidth(), c);
+    }
+
+    private void tiled(final Matrix a, final Matrix b, final double[] c) {
+        final int height = a.getHeight();
+        int tiles = (height + TILE_HEIGHT - 1) / TILE_HEIGHT;
+        execution.forRange(tiles, 1, (from, to) -> {
+            for (int tile = from; tile < to; ++tile) {
+                multiplyRows(a, b, c, tile * TILE_HEIGHT, Math.min((tile + 1) * TILE_HEIGHT, height));
+            }
+        });
+    }
+
+    /**
+     * c[rowFrom..rowTo) += a[rowFrom..rowTo) * b, c is compact row-major of width b.width.
+     */
+    private static void multiplyRows(Matrix a, Matrix b, double[] c, int rowFrom, int rowTo) {
+        int depth = a.getWidth();
+        int width = b.getWidth();
+        double[] aData = a.data;
+        double[] bData = b.data;
+        for (int k0 = 0; k0 < depth; k0 += TILE_DEPTH) {
+            int k1 = Math.min(k0 + TILE_DEPTH, depth);
+            for (int j0 = 0; j0 < width; j0 += TILE_WIDTH) {
+                int j1 = Math.min(j0 + TILE_WIDTH, width);
+                for (int i = rowFrom; i < rowTo; ++i) {
+                    int aRow = a.offset + i * a.stride;
+                    int cRow = i * width;
+                    int k = k0;
+                    for (; k + 3 < k1; k += 4) {
+                        double a0 = aData[aRow + k];
+                        double a1 = aData[aRow + k + 1];
+                        double a2 = aData[aRow + k + 2];
+                        double a3 = aData[aRow + k + 3];
+                        int bRow0 = b.offset + k * b.stride;
+                        int bRow1 = bRow0 + b.stride;
+                        int bRow2 = bRow1 + b.stride;
+                        int bRow3 = bRow2 + b.stride;
+                        for (int j = j0; j < j1; ++j) {
+                            c[cRow + j] += a0 * bData[bRow0 + j] + a1 * bData[bRow1 + j]
+                                    + a2 * bData[bRow2 + j] + a3 * bData[bRow3 + j];
+                        }
+                    }
+                    for (; k < k1; ++k) {
+                        double factor = aData[aRow + k];
+                        int bRow = b.offset + k * b.stride;
+                        for (int j = j0; j < j1; ++j) {
+                            c[cRow + j] += factor * bData[bRow + j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private Matrix strassen(Matrix a, Matrix b) {
+        int n = a.getHeight();
+        int k = a.getWidth();
+        int m = b.getWidth();
+        if (Math.min(n, Math.min(k, m)) < strassenThreshold)
+            return multiply(a, b);
+        if (n % 2 != 0 || k % 2 != 0 || m % 2 != 0) {
+            Matrix padded = strassen(padToEven(a), padToEven(b));
+            return padded.subMatrix(0, 0, n, m).copy();
+        }
+        int n2 = n / 2;
+        int k2 = k / 2;
+        int w2 = m / 2;
+        Matrix a11 = a.subMatrix(0, 0, n2, k2);
+        Matrix a12 = a.subMatrix(0, k2, n2, k2);
+        Matrix a21 = a.subMatrix(n2, 0, n2, k2);
+        Matrix a22 = a.subMatrix(n2, k2, n2, k2);
+        Matrix b11 = b.subMatrix(0, 0, k2, w2);
+        Matrix b12 = b.subMatrix(0, w2, k2, w2);
+        Matrix b21 = b.subMatrix(k2, 0, k2, w2);
+        Matrix b22 = b.subMatrix(k2, w2, k2, w2);
+
+        Matrix m1 = strassen(a11.add(a22), b11.add(b22));
+        Matrix m2 = strassen(a21.add(a22), b11);
+        Matrix m3 = strassen(a11, b12.subtract(b22));
+        Matrix m4 = strassen(a22, b21.subtract(b11));
+        Matrix m5 = strassen(a11.add(a12), b22);
+        Matrix m6 = strassen(a21.subtract(a11), b11.add(b12));
+        Matrix m7 = strassen(a12.subtract(a22), b21.add(b22));
+
+        double[] c = new double[n * m];
+        for (int i = 0; i < n2; ++i) {
+            for (int j = 0; j < w2; ++j) {
+                double p1 = m1.get(i, j);
+                double p2 = m2.get(i, j);
+                double p3 = m3.get(i, j);
+                double p4 = m4.get(i, j);
+                double p5 = m5.get(i, j);
+                c[i * m + j] = p1 + p4 - p5 + m7.get(i, j);
+                c[i * m + w2 + j] = p3 + p5;
+                c[(n2 + i) * m + j] = p2 + p4;
+                c[(n2 + i) * m + w2 + j] = p1 - p2 + p3 + m6.get(i, j);
+            }
+        }
+        return new Matrix(n, m, c);
+    }
+
+    private static Matrix padToEven(Matrix a) {
+        int height = a.getHeight() + a.getHeight() % 2;
+        int width = a.getWidth() + a.getWidth() % 2;
+        if (height == a.getHeight() && width == a.getWidth())
+            return a;
+        double[] result = new double[height * width];
+        for (int i = 0; i < a.getHeight(); ++i) {
+            System.arraycopy(a.data, a.offset + i * a.stride, result, i * width, a.getWidth());
+        }
+        return new Matrix(height, width, result);
+    }
+}
@@ -0,0 +1,346 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Reads numbers from a character stream without allocating anything per number.
+ * <p>
+ * The stream is read into a buffer, and every token is parsed right in the buffer. Decimal numbers
+ * are converted with Clinger's fast path when the digits and the power of ten are both exact doubles,
+ * and with the Eisel-Lemire algorithm otherwise, which multiplies the digits by a 128-bit
+ * approximation of the power of ten and yields the correctly rounded double. Only the rare numbers
+ * these cannot decide (more than 19 significant digits, subnormal results) and special tokens like
+ * NaN or Infinity go through {@link Double#parseDouble} with a temporary String.
+ * <p>
+ * Tokens consist of digits, latin letters, signs and dots; all the other characters delimit them.
+ */
+final class NumberTokenizer {
+
+    private static final int MAXIMAL_DIGITS = 19;
+    private static final int SMALLEST_POWER_OF_TEN = -342;
+    private static final int LARGEST_POWER_OF_TEN = 308;
+
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    /**
+     * Pairs of high and low halves of the 128-bit approximations of 5^q, normalized to the top bit,
+     * for q from SMALLEST_POWER_OF_TEN to LARGEST_POWER_OF_TEN.
+     */
+    private static final long[] POWERS_OF_FIVE = new long[2 * (LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1)];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; ++i) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+        BigInteger five = BigInteger.valueOf(5);
+        for (int q = SMALLEST_POWER_OF_TEN; q <= LARGEST_POWER_OF_TEN; ++q) {
+            BigInteger power;
+            if (q >= 0) {
+                // 5^q truncated to its upper 128 bits
+                power = five.pow(q);
+                int bits = power.bitLength();
+                power = bits <= 128 ? power.shiftLeft(128 - bits) : power.shiftRight(bits - 128);
+            } else {
+                // 2^b / 5^-q rounded up, truncated to its upper 128 bits
+                BigInteger divisor = five.pow(-q);
+                int bits = divisor.bitLength();
+                power = BigInteger.ONE.shiftLeft(q >= -27 ? bits + 127 : 2 * bits + 128).divide(divisor)
+                        .add(BigInteger.ONE);
+                if (power.bitLength() > 128) {
+                    power = power.shiftRight(power.bitLength() - 128);
+                }
+            }
+            int index = 2 * (q - SMALLEST_POWER_OF_TEN);
+            POWERS_OF_FIVE[index] = power.shiftRight(64).longValue();
+            POWERS_OF_FIVE[index + 1] = power.longValue();
+        }
+    }
+
+    private final Reader reader;
+    private char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private int line = 1;
+
+    NumberTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return Number of the current line, starting from 1.
+     */
+    int getLine() {
+        return line;
+    }
+
+    /**
+     * Skips whitespace.
+     *
+     * @return The next character, which is not consumed, or -1 at the end of the stream.
+     */
+    int peek() throws IOException {
+        while (true) {
+            if (position == limit && !fill())
+                return -1;
+            char c = buffer[position];
+            if (c > ' ')
+                return c;
+            if (c == '\n') {
+                ++line;
+            }
+            ++position;
+        }
+    }
+
+    /**
+     * Consumes the character returned by {@link #peek()}.
+     */
+    void skip() {
+        ++position;
+    }
+
+    /**
+     * Consumes the rest of the current line with its end.
+     */
+    void skipLine() throws IOException {
+        while (position < limit || fill()) {
+            if (buffer[position++] == '\n') {
+                ++line;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The rest of the current line without its end.
+     */
+    String nextLine() throws IOException {
+        StringBuilder result = new StringBuilder();
+        while (position < limit || fill()) {
+            char c = buffer[position++];
+            if (c == '\n') {
+                ++line;
+                break;
+            }
+            if (c != '\r') {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * @throws NumberFormatException if the next token is not an int.
+     */
+    int nextInt() throws IOException {
+        int end = token();
+        int i = position;
+        boolean negative = buffer[i] == '-';
+        if (negative || buffer[i] == '+') {
+            ++i;
+        }
+        if (i == end)
+            throw error("Integer expected");
+        long value = 0;
+        for (; i < end; ++i) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9)
+                throw error("Integer expected");
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L)
+                throw error("Integer is too large");
+        }
+        if (!negative && value > Integer.MAX_VALUE)
+            throw error("Integer is too large");
+        position = end;
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * @return The next token as a correctly rounded double, in the syntax of {@link Double#parseDouble}.
+     * @throws NumberFormatException if the next token is not a number.
+     */
+    double nextDouble() throws IOException {
+        int end = token();
+        double value = parseDouble(buffer, position, end);
+        position = end;
+        return value;
+    }
+
+    NumberFormatException error(String message) {
+        return new NumberFormatException("Line " + line + ": " + message + ".");
+    }
+
+    /**
+     * Reads the whole token at the position into the buffer.
+     *
+     * @return End of the token.
+     */
+    private int token() throws IOException {
+        if (peek() < 0)
+            throw error("Unexpected end of input");
+        int length = 0;
+        while (position + length < limit || fill()) {
+            if (!isTokenCharacter(buffer[position + length]))
+                break;
+            ++length;
+        }
+        if (length == 0)
+            throw error("Unexpected '" + buffer[position] + "'");
+        return position + length;
+    }
+
+    private static boolean isTokenCharacter(char c) {
+        return c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '.' || c == '-'
+                || c == '+';
+    }
+
+    /**
+     * Moves the unread characters to the start of the buffer, growing it if they fill it, and reads more.
+     *
+     * @return false at the end of the stream.
+     */
+    private boolean fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read <= 0)
+            return false;
+        limit += read;
+        return true;
+    }
+
+    private double parseDouble(char[] s, int from, int to) {
+        int i = from;
+        boolean negative = s[i] == '-';
+        if (negative || s[i] == '+') {
+            ++i;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        boolean any = false;
+        for (; i < to && s[i] >= '0' && s[i] <= '9'; ++i) {
+            any = true;
+            if (digits < MAXIMAL_DIGITS) {
+                mantissa = mantissa * 10 + (s[i] - '0');
+                if (mantissa != 0) {
+                    ++digits;
+                }
+            } else {
+                ++exponent;
+                truncated |= s[i] != '0';
+            }
+        }
+        if (i < to && s[i] == '.') {
+            for (++i; i < to && s[i] >= '0' && s[i] <= '9'; ++i) {
+                any = true;
+                if (digits < MAXIMAL_DIGITS) {
+                    mantissa = mantissa * 10 + (s[i] - '0');
+                    --exponent;
+                    if (mantissa != 0) {
+                        ++digits;
+                    }
+                } else {
+                    truncated |= s[i] != '0';
+                }
+            }
+        }
+        if (any && i < to && (s[i] == 'e' || s[i] == 'E')) {
+            ++i;
+            boolean negativeExponent = i < to && s[i] == '-';
+            if (i < to && (s[i] == '-' || s[i] == '+')) {
+                ++i;
+            }
+            int start = i;
+            int value = 0;
+            for (; i < to && s[i] >= '0' && s[i] <= '9'; ++i) {
+                value = Math.min(value * 10 + (s[i] - '0'), 100000);
+            }
+            any = i > start;
+            exponent += negativeExponent ? -value : value;
+        }
+        if (any && i == to && !truncated) {
+            double value = toDouble(mantissa, exponent);
+            if (!Double.isNaN(value))
+                return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(new String(s, from, to - from));
+        } catch (NumberFormatException e) {
+            throw error("Number expected instead of " + new String(s, from, to - from));
+        }
+    }
+
+    /**
+     * @param mantissa Unsigned decimal digits.
+     * @return mantissa * 10^exponent correctly rounded, NaN if it cannot be decided here.
+     */
+    static double toDouble(long mantissa, int exponent) {
+        if (mantissa == 0)
+            return 0;
+        if (exponent >= -22 && exponent <= 22 && mantissa >= 0 && mantissa <= 1L << 53) {
+            // both are exact, so one rounding gives the correct result
+            return exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        }
+        if (exponent < SMALLEST_POWER_OF_TEN)
+            return 0;
+        if (exponent > LARGEST_POWER_OF_TEN)
+            return Double.POSITIVE_INFINITY;
+
+        int leadingZeros = Long.numberOfLeadingZeros(mantissa);
+        long w = mantissa << leadingZeros;
+        int index = 2 * (exponent - SMALLEST_POWER_OF_TEN);
+        long high = multiplyHigh(w, POWERS_OF_FIVE[index]);
+        long low = w * POWERS_OF_FIVE[index];
+        if ((high & 0x1FF) == 0x1FF) {
+            // the lower bits may carry into the upper ones, take the next 64 bits of 5^q into account
+            long next = multiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+            low += next;
+            if (Long.compareUnsigned(next, low) > 0) {
+                ++high;
+            }
+        }
+        int upperBit = (int) (high >>> 63);
+        int shift = upperBit + 9;
+        long result = high >>> shift;
+        int power2 = (((152170 + 65536) * exponent) >> 16) + 63 + upperBit - leadingZeros + 1023;
+        if (power2 <= 0)
+            return Double.NaN;
+        if (Long.compareUnsigned(low, 1) <= 0 && exponent >= -4 && exponent <= 23 && (result & 3) == 1
+                && result << shift == high) {
+            // exactly halfway between two doubles, round to even
+            result &= ~1L;
+        }
+        result += result & 1;
+        result >>>= 1;
+        if (result >= 2L << 52) {
+            result = 1L << 52;
+            ++power2;
+        }
+        if (power2 >= 0x7FF)
+            return Double.POSITIVE_INFINITY;
+        return Double.longBitsToDouble(result & ~(1L << 52) | (long) power2 << 52);
+    }
+
+    /**
+     * @return Upper 64 bits of the unsigned 128-bit product.
+     */
+    private static long multiplyHigh(long x, long y) {
+        long x0 = x & 0xFFFFFFFFL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL;
+        long y1 = y >>> 32;
+        long middle = x1 * y0 + (x0 * y0 >>> 32) + (x0 * y1 & 0xFFFFFFFFL);
+        return x1 * y1 + (middle >>> 32) + (x0 * y1 >>> 32);
+    }
+}
@@ -0,0 +1,281 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Represents a rectangular dense matrix of doubles stored outside of the Java heap: in direct buffers
+ * or in a memory-mapped file. A file-backed matrix is paged in and out by the operating system,
+ * so it may be much larger than the heap and even than the physical memory.
+ * <p>
+ * Items are stored row by row, as in {@link Matrix}, in chunks of whole rows of at most CHUNK_ITEMS
+ * items each, since a single buffer cannot exceed 2 GiB. A file-backed matrix is a dense float64 file
+ * of {@link BinaryFormat}, so it can be written once and mapped in place later.
+ * <p>
+ * The matrix is meant for {@link OutOfCoreLU} and for streaming row by row: it is read and written
+ * in whole row segments, see {@link #readRow} and {@link #writeRow}. Single items are slow.
+ */
+public final class OffHeapMatrix implements LinearOperator {
+
+    /**
+     * Maximal number of items in one buffer, 1 GiB.
+     */
+    public static final int CHUNK_ITEMS = 1 << 27;
+
+    private final int height;
+    private final int width;
+    private final int chunkRows;
+    private final DoubleBuffer[] chunks;
+    private final MappedByteBuffer[] mappings;
+
+    private OffHeapMatrix(int height, int width, DoubleBuffer[] chunks, MappedByteBuffer[] mappings) {
+        this.height = height;
+        this.width = width;
+        this.chunkRows = chunkRows(width);
+        this.chunks = chunks;
+        this.mappings = mappings;
+    }
+
+    private static int chunkRows(int width) {
+        return Math.max(1, CHUNK_ITEMS / width);
+    }
+
+    private static int chunkCount(int height, int width) {
+        if (height <= 0 || width <= 0)
+            throw new IllegalArgumentException("Matrix should have non-zero size.");
+        if (width > CHUNK_ITEMS)
+            throw new IllegalArgumentException("Matrix rows should have at most " + CHUNK_ITEMS + " items.");
+        return (height - 1) / chunkRows(width) + 1;
+    }
+
+    /**
+     * Creates a zero matrix in direct buffers. They are limited by -XX:MaxDirectMemorySize
+     * and freed when the matrix is collected.
+     */
+    public static OffHeapMatrix allocate(int height, int width) {
+        int count = chunkCount(height, width);
+        int chunkRows = chunkRows(width);
+        DoubleBuffer[] chunks = new DoubleBuffer[count];
+        for (int c = 0; c < count; ++c) {
+            int rows = Math.min(chunkRows, height - c * chunkRows);
+            chunks[c] = ByteBuffer.allocateDirect(rows * width * 8).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        }
+        return new OffHeapMatrix(height, width, chunks, null);
+    }
+
+    /**
+     * Creates a zero matrix in a new file, replacing the existing one.
+     */
+    public static OffHeapMatrix create(Path path, int height, int width) throws IOException {
+        int count = chunkCount(height, width);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            BinaryFormat.writeDenseHeader(channel, height, width);
+            return map(channel, height, width, count);
+        }
+    }
+
+    /**
+     * Creates a zero matrix in a temporary file, which is deleted at once: its space is freed
+     * when the matrix is collected.
+     */
+    public static OffHeapMatrix temporary(int height, int width) throws IOException {
+        int count = chunkCount(height, width);
+        Path path = Files.createTempFile("matrix", ".bin");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE)) {
+            return map(channel, height, width, count);
+        }
+    }
+
+    /**
+     * Maps a dense float64 matrix written by {@link BinaryFormat} or created by {@link #create}.
+     * Changes of the matrix are written to the file.
+     */
+    public static OffHeapMatrix map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int[] size = BinaryFormat.readDenseHeader(channel);
+            int count = chunkCount(size[0], size[1]);
+            if (channel.size() < BinaryFormat.HEADER_SIZE + (long) size[0] * size[1] * 8)
+                throw new IOException("The file is shorter than the matrix.");
+            return map(channel, size[0], size[1], count);
+        }
+    }
+
+    /**
+     * The mappings stay valid after the channel is closed.
+     */
+    private static OffHeapMatrix map(FileChannel channel, int height, int width, int count) throws IOException {
+        int chunkRows = chunkRows(width);
+        DoubleBuffer[] chunks = new DoubleBuffer[count];
+        MappedByteBuffer[] mappings = new MappedByteBuffer[count];
+        for (int c = 0; c < count; ++c) {
+            int rows = Math.min(chunkRows, height - c * chunkRows);
+            mappings[c] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    BinaryFormat.HEADER_SIZE + (long) c * chunkRows * width * 8, (long) rows * width * 8);
+            chunks[c] = mappings[c].order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+        return new OffHeapMatrix(height, width, chunks, mappings);
+    }
+
+    /**
+     * Copies a heap matrix into direct buffers.
+     */
+    public static OffHeapMatrix of(Matrix m) {
+        OffHeapMatrix result = allocate(m.getHeight(), m.getWidth());
+        for (int i = 0; i < m.getHeight(); ++i) {
+            result.writeRow(i, 0, m.data, m.offset + i * m.stride, m.getWidth());
+        }
+        return result;
+    }
+
+    /**
+     * Copies the matrix into storage of the same kind: direct buffers or a temporary file.
+     */
+    public OffHeapMatrix copy() throws IOException {
+        OffHeapMatrix result = mappings == null ? allocate(height, width) : temporary(height, width);
+        for (int c = 0; c < chunks.length; ++c) {
+            result.chunks[c].duplicate().put(chunks[c].duplicate());
+        }
+        return result;
+    }
+
+    /**
+     * Writes the changes of a file-backed matrix to the storage device. Does nothing for direct buffers.
+     */
+    public void force() {
+        if (mappings != null) {
+            for (MappedByteBuffer mapping : mappings) {
+                mapping.force();
+            }
+        }
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    public double get(int i, int j) {
+        checkItem(i, j);
+        return chunks[i / chunkRows].get((i % chunkRows) * width + j);
+    }
+
+    public void set(int i, int j, double value) {
+        checkItem(i, j);
+        chunks[i / chunkRows].put((i % chunkRows) * width + j, value);
+    }
+
+    private void checkItem(int i, int j) {
+        if (i < 0 || i >= height || j < 0 || j >= width)
+            throw new IllegalArgumentException("Item (" + i + ", " + j + ") is out of matrix bounds.");
+    }
+
+    /**
+     * Copies items [i, column..column+length) into target[offset..offset+length).
+     */
+    public void readRow(int i, int column, double[] target, int offset, int length) {
+        row(i, column, length).get(target, offset, length);
+    }
+
+    /**
+     * Copies source[offset..offset+length) into items [i, column..column+length).
+     */
+    public void writeRow(int i, int column, double[] source, int offset, int length) {
+        row(i, column, length).put(source, offset, length);
+    }
+
+    /**
+     * @return Buffer positioned at item [i, column], private to the caller.
+     */
+    private DoubleBuffer row(int i, int column, int length) {
+        if (i < 0 || i >= height || column < 0 || length < 0 || column + length > width)
+            throw new IllegalArgumentException("Row segment is out of matrix bounds.");
+        DoubleBuffer result = chunks[i / chunkRows].duplicate();
+        result.position((i % chunkRows) * width + column);
+        return result;
+    }
+
+    /**
+     * Streams the rows through one row buffer.
+     */
+    @Override
+    public void apply(Vector in, Vector out) {
+        if (in.getDimensions() != width || out.getDimensions() != height)
+            throw new IllegalArgumentException("Vector dimensions do not match the matrix.");
+        double[] x = in.getComponents();
+        double[] row = new double[width];
+        for (int i = 0; i < height; ++i) {
+            readRow(i, 0, row, 0, width);
+            double sum = 0;
+            for (int j = 0; j < width; ++j) {
+                sum += row[j] * x[j];
+            }
+            out.set(i, sum);
+        }
+    }
+
+    @Override
+    public boolean hasTranspose() {
+        return true;
+    }
+
+    @Override
+    public void applyTransposed(Vector in, Vector out) {
+        if (in.getDimensions() != height || out.getDimensions() != width)
+            throw new IllegalArgumentException("Vector dimensions do not match the matrix.");
+        double[] result = new double[width];
+        double[] row = new double[width];
+        for (int i = 0; i < height; ++i) {
+            double factor = in.get(i);
+            if (factor == 0) {
+                continue;
+            }
+            readRow(i, 0, row, 0, width);
+            for (int j = 0; j < width; ++j) {
+                result[j] += factor * row[j];
+            }
+        }
+        for (int j = 0; j < width; ++j) {
+            out.set(j, result[j]);
+        }
+    }
+
+    @Override
+    public boolean hasDiagonal() {
+        return true;
+    }
+
+    @Override
+    public double[] getDiagonal() {
+        double[] result = new double[Math.min(height, width)];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = get(i, i);
+        }
+        return result;
+    }
+
+    /**
+     * Copies the matrix into the heap, so it should fit there.
+     */
+    @Override
+    public Matrix toDense() {
+        if ((long) height * width > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The matrix is too large for the heap.");
+        double[] data = new double[height * width];
+        for (int i = 0; i < height; ++i) {
+            readRow(i, 0, data, i * width, width);
+        }
+        return new Matrix(height, width, data);
+    }
+}
@@ -0,0 +1,308 @@
+/**
+ * LU decomposition with partial (row) pivoting, PA = LU, of an {@link OffHeapMatrix}, computed in place
+ * with a bounded amount of heap.
+ * <p>
+ * Elimination is right-looking and blocked like {@link GaussElimination}, but only a working set
+ * of the matrix is in the heap at a time. For every panel of b columns:
+ * <ol>
+ * <li>the panel, rows k0..n-1, is read, factored with pivoting and written back;</li>
+ * <li>its row swaps are applied to the other columns;</li>
+ * <li>the panel rows right of it are solved with the unit lower block of the panel (U12);</li>
+ * <li>the trailing rows are updated with the panel and U12, a strip of b rows at a time,
+ * streaming their items from the storage and back.</li>
+ * </ol>
+ * The panel, U12 and the strip take about 3 * 8 * n * b bytes, so b is chosen from the working set:
+ * the smaller it is, the more times the trailing matrix is streamed, about n / b times in total.
+ * Solving for a right part streams the factors twice, row by row.
+ */
+public class OutOfCoreLU implements Factorization {
+
+    /**
+     * Default heap working set, 64 MiB.
+     */
+    public static final long DEFAULT_WORKING_SET = 64L << 20;
+
+    /**
+     * Maximal panel width: wider panels save little streaming and factor slower.
+     */
+    public static final int MAXIMAL_PANEL_WIDTH = 256;
+
+    private final OffHeapMatrix lu;
+    private final int[] pivots;
+    private final int pivotSign;
+    private final double[] diagonal;
+    private final int panelWidth;
+
+    public OutOfCoreLU(OffHeapMatrix a) {
+        this(a, DEFAULT_WORKING_SET);
+    }
+
+    /**
+     * Factors the matrix, replacing its items with L and U.
+     *
+     * @param a          Square matrix, overwritten with the factors.
+     * @param workingSet Heap in bytes to use for the parts of the matrix.
+     */
+    public OutOfCoreLU(OffHeapMatrix a, long workingSet) {
+        if (a.getHeight() != a.getWidth())
+            throw new IllegalArgumentException("LU decomposition is only defined for square matrices.");
+        int n = a.getHeight();
+        this.lu = a;
+        this.pivots = new int[n];
+        this.diagonal = new double[n];
+        this.panelWidth = (int) Math.max(1, Math.min(Math.min(MAXIMAL_PANEL_WIDTH, n), workingSet / (24L * n)));
+        this.pivotSign = factor();
+    }
+
+    /**
+     * @return Number of columns factored at once.
+     */
+    public int getPanelWidth() {
+        return panelWidth;
+    }
+
+    private int factor() {
+        int n = pivots.length;
+        for (int i = 0; i < n; ++i) {
+            pivots[i] = i;
+        }
+        int sign = 1;
+        int b = panelWidth;
+        double[] panel = new double[n * b];
+        double[] upper = new double[b * n];
+        double[] strip = new double[b * n];
+        double[] row = new double[n];
+        double[] other = new double[n];
+        int[] swaps = new int[b];
+        for (int k0 = 0; k0 < n; k0 += b) {
+            int k1 = Math.min(k0 + b, n);
+            int pw = k1 - k0;
+            int rows = n - k0;
+            for (int i = 0; i < rows; ++i) {
+                lu.readRow(k0 + i, k0, panel, i * pw, pw);
+            }
+            for (int k = 0; k < pw; ++k) {
+                int p = k;
+                double max = Math.abs(panel[k * pw + k]);
+                for (int i = k + 1; i < rows; ++i) {
+                    double value = Math.abs(panel[i * pw + k]);
+                    if (value > max) {
+                        max = value;
+                        p = i;
+                    }
+                }
+                swaps[k] = k0 + p;
+                if (p != k) {
+                    System.arraycopy(panel, k * pw, row, 0, pw);
+                    System.arraycopy(panel, p * pw, panel, k * pw, pw);
+                    System.arraycopy(row, 0, panel, p * pw, pw);
+                    int t = pivots[k0 + p];
+                    pivots[k0 + p] = pivots[k0 + k];
+                    pivots[k0 + k] = t;
+                    sign = -sign;
+                }
+                double pivot = panel[k * pw + k];
+                diagonal[k0 + k] = pivot;
+                if (pivot == 0) {
+                    continue;
+                }
+                for (int i = k + 1; i < rows; ++i) {
+                    double factor = panel[i * pw + k] / pivot;
+                    panel[i * pw + k] = factor;
+                    if (factor == 0) {
+                        continue;
+                    }
+                    for (int j = k + 1; j < pw; ++j) {
+                        panel[i * pw + j] -= factor * panel[k * pw + j];
+                    }
+                }
+            }
+            for (int i = 0; i < rows; ++i) {
+                lu.writeRow(k0 + i, k0, panel, i * pw, pw);
+            }
+            for (int k = 0; k < pw; ++k) {
+                if (swaps[k] != k0 + k) {
+                    swapOutside(k0 + k, swaps[k], k0, k1, row, other);
+                }
+            }
+            if (k1 == n) {
+                continue;
+            }
+            int rest = n - k1;
+            for (int r = 0; r < pw; ++r) {
+                lu.readRow(k0 + r, k1, upper, r * rest, rest);
+                for (int q = 0; q < r; ++q) {
+                    subtract(upper, r * rest, panel[r * pw + q], upper, q * rest, rest);
+                }
+                lu.writeRow(k0 + r, k1, upper, r * rest, rest);
+            }
+            for (int i0 = k1; i0 < n; i0 += b) {
+                int i1 = Math.min(i0 + b, n);
+                for (int i = i0; i < i1; ++i) {
+                    lu.readRow(i, k1, strip, (i - i0) * rest, rest);
+                }
+                for (int i = i0; i < i1; ++i) {
+                    int l = (i - k0) * pw;
+                    int s = (i - i0) * rest;
+                    for (int j0 = 0; j0 < rest; j0 += GaussElimination.TILE_WIDTH) {
+                        int length = Math.min(GaussElimination.TILE_WIDTH, rest - j0);
+                        for (int q = 0; q < pw; ++q) {
+                            subtract(strip, s + j0, panel[l + q], upper, q * rest + j0, length);
+                        }
+                    }
+                }
+                for (int i = i0; i < i1; ++i) {
+                    lu.writeRow(i, k1, strip, (i - i0) * rest, rest);
+                }
+            }
+        }
+        return sign;
+    }
+
+    /**
+     * target[t..t+length) -= factor * source[s..s+length)
+     */
+    private static void subtract(double[] target, int t, double factor, double[] source, int s, int length) {
+        if (factor == 0) {
+            return;
+        }
+        for (int j = 0; j < length; ++j) {
+            target[t + j] -= factor * source[s + j];
+        }
+    }
+
+    /**
+     * Swaps rows i and p in columns 0..k0-1 and k1..n-1.
+     */
+    private void swapOutside(int i, int p, int k0, int k1, double[] row, double[] other) {
+        int n = pivots.length;
+        lu.readRow(i, 0, row, 0, k0);
+        lu.readRow(p, 0, other, 0, k0);
+        lu.writeRow(i, 0, other, 0, k0);
+        lu.writeRow(p, 0, row, 0, k0);
+        lu.readRow(i, k1, row, 0, n - k1);
+        lu.readRow(p, k1, other, 0, n - k1);
+        lu.writeRow(i, k1, other, 0, n - k1);
+        lu.writeRow(p, k1, row, 0, n - k1);
+    }
+
+    @Override
+    public int getDimensions() {
+        return pivots.length;
+    }
+
+    /**
+     * @param epsilon Pivots with absolute value less than epsilon are treated as zero.
+     * @return true, if there is |U_k_k| < epsilon.
+     */
+    public boolean isSingular(double epsilon) {
+        for (double pivot : diagonal) {
+            if (!(Math.abs(pivot) >= epsilon))
+                return true;
+        }
+        return false;
+    }
+
+    public boolean isSingular() {
+        return isSingular(Matrix.REVERSE_DETERMINANT_EPSILON);
+    }
+
+    /**
+     * @return det(A) = sign(P) * Prod {1..n} U_i_i
+     */
+    public double determinant() {
+        double result = pivotSign;
+        for (double pivot : diagonal) {
+            result *= pivot;
+        }
+        return result;
+    }
+
+    @Override
+    public Vector solve(Vector b) {
+        if (b.getDimensions() != pivots.length)
+            throw new IllegalArgumentException("Vector should have size equal to matrix height");
+        Matrix x = solve(new Matrix(pivots.length, 1, b.getComponents()));
+        return x == null ? null : x.getColumn(0);
+    }
+
+    @Override
+    public boolean hasTranspose() {
+        return true;
+    }
+
+    /**
+     * Solves A^T x = b as U^T L^T P x = b, reading every row of the factors once per direction.
+     *
+     * @return null, if A is singular. x, such that A^T x = b otherwise.
+     */
+    @Override
+    public Vector solveTransposed(Vector b) {
+        int n = pivots.length;
+        if (b.getDimensions() != n)
+            throw new IllegalArgumentException("Vector should have size equal to matrix height");
+        if (isSingular())
+            return null;
+        double[] z = b.getComponents();
+        double[] row = new double[n];
+        for (int i = 0; i < n; ++i) {
+            z[i] /= diagonal[i];
+            lu.readRow(i, i + 1, row, 0, n - i - 1);
+            subtract(z, i + 1, z[i], row, 0, n - i - 1);
+        }
+        for (int i = n - 1; i > 0; --i) {
+            lu.readRow(i, 0, row, 0, i);
+            subtract(z, 0, z[i], row, 0, i);
+        }
+        double[] x = new double[n];
+        for (int i = 0; i < n; ++i) {
+            x[pivots[i]] = z[i];
+        }
+        return new Vector(x);
+    }
+
+    /**
+     * Solves AX = B with forward and back substitution, reading every row of the factors
+     * once per direction for all the right parts.
+     *
+     * @param b Matrix of right parts of size [n x k].
+     * @return null, if A is singular. X of size [n x k], such that AX = B otherwise.
+     */
+    @Override
+    public Matrix solve(Matrix b) {
+        int n = pivots.length;
+        if (b.getHeight() != n)
+            throw new IllegalArgumentException("Right parts matrix should have height equal to matrix height");
+        if (isSingular())
+            return null;
+        int k = b.getWidth();
+        double[] x = new double[n * k];
+        for (int i = 0; i < n; ++i) {
+            System.arraycopy(b.data, b.offset + pivots[i] * b.stride, x, i * k, k);
+        }
+        double[] row = new double[n];
+        for (int i = 1; i < n; ++i) {
+            lu.readRow(i, 0, row, 0, i);
+            for (int j = 0; j < i; ++j) {
+                subtract(x, i * k, row[j], x, j * k, k);
+            }
+        }
+        for (int i = n - 1; i >= 0; --i) {
+            lu.readRow(i, i + 1, row, 0, n - i - 1);
+            for (int j = i + 1; j < n; ++j) {
+                subtract(x, i * k, row[j - i - 1], x, j * k, k);
+            }
+            for (int c = 0; c < k; ++c) {
+                x[i * k + c] /= diagonal[i];
+            }
+        }
+        return new Matrix(n, k, x);
+    }
+
+    /**
+     * @return Row permutation p, such that i-th row of LU is p[i]-th row of A.
+     */
+    public int[] getPivots() {
+        return pivots.clone();
+    }
+}
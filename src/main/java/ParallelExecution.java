@@ -0,0 +1,135 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Describes how row-independent loops (products by vector, Jacobi updates) are run:
+ * sequentially, or split into chunks of rows executed by a {@link ForkJoinPool}.
+ * <p>
+ * Ranges shorter than the grain are never split, so small systems do not pay for task overhead.
+ */
+public final class ParallelExecution {
+
+    public static final int DEFAULT_GRAIN = 2048;
+
+    /**
+     * Runs everything in the calling thread.
+     */
+    public static final ParallelExecution SEQUENTIAL = new ParallelExecution(null, Integer.MAX_VALUE);
+
+    private final ForkJoinPool pool;
+    public final int grain;
+
+    private ParallelExecution(ForkJoinPool pool, int grain) {
+        if (grain <= 0)
+            throw new IllegalArgumentException("Grain should be positive.");
+        this.pool = pool;
+        this.grain = grain;
+    }
+
+    /**
+     * @param pool  Pool to run chunks in.
+     * @param grain Minimal number of rows in a chunk.
+     */
+    public static ParallelExecution of(ForkJoinPool pool, int grain) {
+        return new ParallelExecution(pool, grain);
+    }
+
+    public static ParallelExecution of(ForkJoinPool pool) {
+        return of(pool, DEFAULT_GRAIN);
+    }
+
+    /**
+     * Runs chunks in the common pool.
+     */
+    public static ParallelExecution common() {
+        return of(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs chunks in a new pool with the given parallelism. The pool is owned by the caller,
+     * who should shut it down with {@link #shutdown()} when it is no longer needed.
+     *
+     * @param parallelism Number of worker threads.
+     */
+    public static ParallelExecution withParallelism(int parallelism) {
+        return of(new ForkJoinPool(parallelism));
+    }
+
+    public int getParallelism() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    public void shutdown() {
+        if (pool != null && pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Body of a loop over a range of rows.
+     */
+    public interface RangeTask {
+
+        /**
+         * Processes rows from (inclusive) .. to (exclusive).
+         */
+        public abstract void run(int from, int to);
+
+    }
+
+    /**
+     * Runs task over rows 0..size-1, split into chunks of at least grain rows, about four chunks
+     * per worker thread, so that work stealing can even out uneven chunks.
+     * Returns when all the chunks are done.
+     *
+     * @param size Number of rows.
+     * @param task Loop body, should be safe to run for disjoint ranges concurrently.
+     */
+    public void forRange(int size, RangeTask task) {
+        forRange(size, grain, task);
+    }
+
+    /**
+     * Runs task as {@link #forRange(int, RangeTask)} with another grain, for loops
+     * whose iterations are much heavier than a row of a product by vector.
+     *
+     * @param size  Number of iterations.
+     * @param grain Minimal number of iterations in a chunk.
+     * @param task  Loop body, should be safe to run for disjoint ranges concurrently.
+     */
+    public void forRange(int size, int grain, RangeTask task) {
+        if (pool == null || size <= grain || pool.getParallelism() == 1) {
+            task.run(0, size);
+            return;
+        }
+        int chunk = Math.max(grain, (size + 4 * pool.getParallelism() - 1) / (4 * pool.getParallelism()));
+        pool.invoke(new RangeAction(task, 0, size, chunk));
+    }
+
+    private static class RangeAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RangeTask task;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        RangeAction(RangeTask task, int from, int to, int chunk) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                task.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeAction(task, from, middle, chunk), new RangeAction(task, middle, to, chunk));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * Preconditioner M of a linear operator A: an operator close to A, such that Mz = r is cheap to solve.
+ * Iterative solvers use it to work with M^-1 A, which is much better conditioned than A.
+ */
+public interface Preconditioner {
+
+    /**
+     * Solves Mz = r. The vectors should not overlap.
+     *
+     * @param r Vector of size n.
+     * @param z Vector of size n, z = M^-1 r.
+     */
+    public abstract void apply(Vector r, Vector z);
+
+    /**
+     * Builds a preconditioner for the operator of every system given to a solver, e.g.
+     * {@code JacobiPreconditioner::new} or {@code a -> new SsorPreconditioner(a, 1.5)}.
+     */
+    public interface Factory {
+
+        public abstract Preconditioner create(LinearOperator a);
+
+    }
+}
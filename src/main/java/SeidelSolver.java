@@ -1,47 +1,260 @@
 /**
  * Solves linear equations systems with Seidel method.
  * <p>
+ * For a {@link SparseMatrix} a sweep visits only the stored items, O(nnz) instead of O(n^2).
+ * A sweep needs access to the rows, so matrix-free operators are converted to dense matrices.
+ * <p>
+ * In multicolor mode the rows are visited color by color of {@link MatrixColoring}: rows of one color
+ * do not refer to each other, so they are updated concurrently with the current values of the other
+ * colors. It is still Seidel method, only for another order of the unknowns, so the convergence rate
+ * stays about the same. The mode works on sparse matrices, other operators are converted to them.
+ * <p>
+ * The residual is not computed with a separate product: a sweep reads every item of A anyway,
+ * so along with the next approximation x' it builds the residual b - Ax of the previous one
+ * at the cost of one more multiply-add per item. The update x' - x is known after the sweep as well.
+ * Convergence is checked by {@link Criterion} every checkInterval sweeps.
+ * <p>
  * Created by Sergey on 20.02.2015.
  */
 public class SeidelSolver implements Solver {
 
+    /**
+     * When to stop the iterations. Absolute tolerances are epsilon * 0.1, relative ones are epsilon.
+     */
+    public enum Criterion {
+        /**
+         * |b - Ax| <= epsilon * 0.1
+         */
+        RESIDUAL,
+        /**
+         * |b - Ax| <= epsilon * |b|
+         */
+        RELATIVE_RESIDUAL,
+        /**
+         * |x' - x| <= epsilon * 0.1
+         */
+        UPDATE,
+        /**
+         * Both RELATIVE_RESIDUAL and UPDATE.
+         */
+        RELATIVE_RESIDUAL_AND_UPDATE
+    }
+
     public final int iterationsLimit;
+    public final Criterion criterion;
+
+    /**
+     * Convergence is checked on every checkInterval-th sweep only.
+     */
+    public final int checkInterval;
+
+    /**
+     * How to run the rows of a color, null for the natural sequential order.
+     */
+    public final ParallelExecution execution;
 
     public SeidelSolver(int iterationsLimit) {
+        this(iterationsLimit, null);
+    }
+
+    /**
+     * @param iterationsLimit Maximal number of sweeps.
+     * @param execution       How to run the rows of a color in multicolor mode, null for the natural order.
+     */
+    public SeidelSolver(int iterationsLimit, ParallelExecution execution) {
+        this(iterationsLimit, execution, Criterion.RESIDUAL, 1);
+    }
+
+    /**
+     * @param iterationsLimit Maximal number of sweeps.
+     * @param execution       How to run the rows of a color in multicolor mode, null for the natural order.
+     * @param criterion       When to stop.
+     * @param checkInterval   Number of sweeps between convergence checks.
+     */
+    public SeidelSolver(int iterationsLimit, ParallelExecution execution, Criterion criterion, int checkInterval) {
+        if (checkInterval <= 0)
+            throw new IllegalArgumentException("Check interval should be positive.");
         this.iterationsLimit = iterationsLimit;
+        this.execution = execution;
+        this.criterion = criterion;
+        this.checkInterval = checkInterval;
     }
 
     @Override
-    public Solution solve(LinearEquationsSystem s, double epsilon) {
-        Vector x = Vector.zero(s.b.getDimensions());
-        Vector nextX = x;
+    public Solution solve(LinearEquationsSystem s, double epsilon, SolverListener listener) {
+        return solve(s, Vector.zero(s.a.getWidth()), epsilon, listener);
+    }
+
+    @Override
+    public Solution solve(LinearEquationsSystem s, Vector guess, double epsilon, SolverListener listener) {
+        SolveTracker.checkGuess(s, guess);
+        SolveTracker tracker = new SolveTracker(listener, this, s);
+        if (execution != null && !(s.a instanceof SparseMatrix)) {
+            s = new LinearEquationsSystem(SparseMatrix.of(s.a.toDense()), s.b, s.factorization);
+        } else if (!(s.a instanceof SparseMatrix)) {
+            s = new LinearEquationsSystem(s.a.toDense(), s.b, s.factorization);
+        }
+        int n = s.b.getDimensions();
+        boolean checkResidual = criterion != Criterion.UPDATE;
+        boolean checkUpdate = criterion == Criterion.UPDATE || criterion == Criterion.RELATIVE_RESIDUAL_AND_UPDATE;
+        double residualTolerance = criterion == Criterion.RESIDUAL ? epsilon * 0.1 : epsilon * s.b.norm2();
+        // Work vectors are swapped between sweeps, so the loop itself allocates nothing.
+        Vector x = guess;
+        Vector nextX = Vector.zero(n);
+        Vector residual = Vector.zero(n);
+        Relaxation relaxation = createRelaxation();
+        if (execution != null) {
+            ((SparseMatrix) s.a).getColoring();
+        }
+        tracker.setupDone();
         int iterations = 0;
-        do {
-            x = nextX;
-            nextX = seidelProduct(s.a, x, s.b);
+        while (true) {
+            boolean check = (iterations + 1) % checkInterval == 0;
+            boolean sampled = tracker.isSampled(iterations + 1);
+            seidelProduct(s.a, x, s.b, nextX, (check && checkResidual) || sampled ? residual : null,
+                    relaxation.factor);
+            tracker.products++;
             iterations++;
-            if (nextX.hasNaN() || iterations > iterationsLimit)
-                return null;
-        } while (s.a.multiply(nextX).subtract(s.b).norm() > epsilon * 0.1);
-        if (!(s.a.multiply(nextX).subtract(s.b).norm() <= epsilon * 0.1)
-                && !(Vector.distance(x, nextX) <= epsilon * 0.1)) {
-            return null;
+            if (nextX.hasNaN())
+                return tracker.failed(SolverListener.Outcome.DIVERGED, iterations);
+            if (iterations > iterationsLimit)
+                return tracker.failed(SolverListener.Outcome.ITERATIONS_LIMIT, iterations);
+            if (sampled) {
+                // The residual of the approximation the sweep started from.
+                tracker.iteration(iterations, residual.norm2());
+            }
+            if (check && (!checkResidual || residual.norm2() <= residualTolerance)
+                    && (!checkUpdate || Vector.distance(x, nextX) <= epsilon * 0.1)) {
+                // The residual is of x, the update only says that x' is as good.
+                Vector solution = checkUpdate ? nextX : x;
+                if (solution != guess) {
+                    solution.copyInto(guess);
+                }
+                return tracker.converged(iterations, guess);
+            }
+            relaxation.afterSweep(x, nextX);
+            Vector swap = x;
+            x = nextX;
+            nextX = swap;
+        }
+    }
+
+    /**
+     * Relaxation factor w of the sweeps within one solve: every component becomes
+     * (1 - w) x_i + w * (its Seidel value). Seidel method keeps w = 1.
+     */
+    protected static class Relaxation {
+
+        protected double factor = 1;
+
+        /**
+         * Called after every sweep, may change the factor for the next one.
+         *
+         * @param x     Approximation before the sweep.
+         * @param nextX Approximation after it.
+         */
+        protected void afterSweep(Vector x, Vector nextX) {
         }
-        return new Solution(iterations, nextX);
     }
 
-    protected Vector seidelProduct(Matrix a, Vector x, Vector b) {
-        double[] components = new double[a.getHeight()];
-        for (int i = 0; i < components.length; ++i) {
-            double component = 0;
+    /**
+     * @return Relaxation for a new solve.
+     */
+    protected Relaxation createRelaxation() {
+        return new Relaxation();
+    }
+
+    /**
+     * Makes a Seidel sweep from approximation x.
+     *
+     * @param result     Vector for the next approximation, should not overlap x.
+     * @param residual   Vector for b - Ax, built during the sweep, or null if it is not needed.
+     * @param relaxation Relaxation factor w, 1 for plain Seidel sweep.
+     */
+    protected void seidelProduct(LinearOperator operator, Vector x, Vector b, Vector result, Vector residual,
+                                 double relaxation) {
+        if (operator instanceof SparseMatrix) {
+            if (execution != null) {
+                multicolorProduct((SparseMatrix) operator, x, b, result, residual, relaxation);
+            } else {
+                seidelProduct((SparseMatrix) operator, x, b, result, residual, relaxation);
+            }
+            return;
+        }
+        Matrix a = (Matrix) operator;
+        for (int i = 0; i < a.getHeight(); ++i) {
+            double lower = 0;
+            double lowerPrevious = 0;
             for (int j = 0; j < i; ++j) {
-                component += components[j] * a.get(i, j);
+                lower += result.get(j) * a.get(i, j);
+                lowerPrevious += x.get(j) * a.get(i, j);
             }
+            double upper = 0;
             for (int j = i + 1; j < a.getWidth(); ++j) {
-                component += x.get(j) * a.get(i, j);
+                upper += x.get(j) * a.get(i, j);
             }
-            components[i] = (b.get(i) - component) / a.get(i, i);
+            if (residual != null) {
+                residual.set(i, b.get(i) - lowerPrevious - upper - a.get(i, i) * x.get(i));
+            }
+            double value = (b.get(i) - lower - upper) / a.get(i, i);
+            result.set(i, (1 - relaxation) * x.get(i) + relaxation * value);
+        }
+    }
+
+    private void seidelProduct(SparseMatrix a, Vector x, Vector b, Vector result, Vector residual,
+                               double relaxation) {
+        for (int i = 0; i < a.getHeight(); ++i) {
+            double lower = 0;
+            double lowerPrevious = 0;
+            double upper = 0;
+            double diagonal = 0;
+            for (int k = a.rowPointers[i]; k < a.rowPointers[i + 1]; ++k) {
+                int j = a.columns[k];
+                if (j < i) {
+                    lower += result.get(j) * a.values[k];
+                    lowerPrevious += x.get(j) * a.values[k];
+                } else if (j > i) {
+                    upper += x.get(j) * a.values[k];
+                } else {
+                    diagonal = a.values[k];
+                }
+            }
+            if (residual != null) {
+                residual.set(i, b.get(i) - lowerPrevious - upper - diagonal * x.get(i));
+            }
+            double value = (b.get(i) - lower - upper) / diagonal;
+            result.set(i, (1 - relaxation) * x.get(i) + relaxation * value);
+        }
+    }
+
+    private void multicolorProduct(final SparseMatrix a, final Vector x, final Vector b, final Vector result,
+                                   final Vector residual, final double relaxation) {
+        x.copyInto(result);
+        final MatrixColoring coloring = a.getColoring();
+        for (int color = 0; color < coloring.getColors(); ++color) {
+            final int start = coloring.colorStart(color);
+            execution.forRange(coloring.colorEnd(color) - start, (from, to) -> {
+                for (int p = start + from; p < start + to; ++p) {
+                    int i = coloring.row(p);
+                    double component = 0;
+                    double previous = 0;
+                    double diagonal = 0;
+                    for (int k = a.rowPointers[i]; k < a.rowPointers[i + 1]; ++k) {
+                        int j = a.columns[k];
+                        if (j != i) {
+                            component += result.get(j) * a.values[k];
+                            previous += x.get(j) * a.values[k];
+                        } else {
+                            diagonal = a.values[k];
+                        }
+                    }
+                    if (residual != null) {
+                        residual.set(i, b.get(i) - previous - diagonal * x.get(i));
+                    }
+                    double value = (b.get(i) - component) / diagonal;
+                    result.set(i, (1 - relaxation) * x.get(i) + relaxation * value);
+                }
+            });
         }
-        return new Vector(components);
     }
 }
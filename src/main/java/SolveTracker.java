@@ -0,0 +1,70 @@
+/**
+ * Reports a solve to a {@link SolverListener}: measures the phases, counts the products
+ * and filters the iterations by the interval of the listener.
+ */
+final class SolveTracker {
+
+    private final SolverListener listener;
+    private final int interval;
+    private long phaseStart;
+
+    /**
+     * Number of products of the operator by vector so far.
+     */
+    long products;
+
+    SolveTracker(SolverListener listener, Solver solver, LinearEquationsSystem s) {
+        this.listener = listener;
+        this.interval = listener.getIterationInterval();
+        listener.onStart(solver, s);
+        phaseStart = System.nanoTime();
+    }
+
+    /**
+     * Checks that x can be the initial approximation and the solution of the system.
+     */
+    static void checkGuess(LinearEquationsSystem s, Vector x) {
+        if (x.getDimensions() != s.a.getWidth())
+            throw new IllegalArgumentException("Initial approximation should have size equal to matrix width");
+    }
+
+    /**
+     * Ends the setup phase.
+     */
+    void setupDone() {
+        long now = System.nanoTime();
+        listener.onPhase(SolverListener.Phase.SETUP, now - phaseStart);
+        phaseStart = now;
+    }
+
+    /**
+     * @return Whether the iteration is reported, for norms which cost something to compute.
+     */
+    boolean isSampled(int iteration) {
+        return interval > 0 && iteration % interval == 0;
+    }
+
+    void iteration(int iteration, double norm) {
+        if (interval > 0 && iteration % interval == 0) {
+            listener.onIteration(iteration, norm);
+        }
+    }
+
+    Solution converged(int iterations, Vector x) {
+        finish(SolverListener.Outcome.CONVERGED, iterations);
+        return new Solution(iterations, x);
+    }
+
+    /**
+     * @return null, for the solver to return.
+     */
+    Solution failed(SolverListener.Outcome outcome, int iterations) {
+        finish(outcome, iterations);
+        return null;
+    }
+
+    private void finish(SolverListener.Outcome outcome, int iterations) {
+        listener.onPhase(SolverListener.Phase.SOLVE, System.nanoTime() - phaseStart);
+        listener.onFinish(outcome, iterations, products);
+    }
+}
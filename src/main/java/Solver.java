@@ -3,6 +3,38 @@
  */
 public interface Solver {
 
-    public abstract Solution solve(LinearEquationsSystem s, double epsilon);
+    public default Solution solve(LinearEquationsSystem s, double epsilon) {
+        return solve(s, epsilon, SolverListener.NONE);
+    }
+
+    /**
+     * Solves the system, reporting the progress to listener.
+     *
+     * @return The solution, or null if the method failed; listener gets the reason.
+     */
+    public abstract Solution solve(LinearEquationsSystem s, double epsilon, SolverListener listener);
+
+    public default Solution solve(LinearEquationsSystem s, Vector x, double epsilon) {
+        return solve(s, x, epsilon, SolverListener.NONE);
+    }
+
+    /**
+     * Solves the system starting from the approximation x and writes the solution into x.
+     * <p>
+     * Iterative solvers start their iterations from x, so a close guess, like the solution of the previous
+     * system of a sequence, takes few iterations; they allocate no vector for the solution. Direct solvers
+     * ignore the guess and copy their solution into x.
+     *
+     * @param x Initial approximation; the solution after a successful solve, unspecified after a failed one.
+     * @return Solution holding x, or null if the method failed; listener gets the reason.
+     */
+    public default Solution solve(LinearEquationsSystem s, Vector x, double epsilon, SolverListener listener) {
+        SolveTracker.checkGuess(s, x);
+        Solution solution = solve(s, epsilon, listener);
+        if (solution == null)
+            return null;
+        solution.vector.copyInto(x);
+        return new Solution(solution.iterations, x);
+    }
 
 }
@@ -0,0 +1,89 @@
+/**
+ * Receives what happens during {@link Solver#solve(LinearEquationsSystem, double, SolverListener)}:
+ * the time of the phases, the convergence history and how the solve ended.
+ * <p>
+ * All the methods do nothing by default. Iterations are reported only every
+ * {@link #getIterationInterval()}-th one, so a listener which does not need the history,
+ * or samples it rarely, costs the solver a comparison per iteration.
+ */
+public interface SolverListener {
+
+    public enum Phase {
+        /**
+         * Everything before the iterations: conversions of the operator, factorization,
+         * creation of a preconditioner.
+         */
+        SETUP,
+        /**
+         * The iterations, or the substitutions of a direct method.
+         */
+        SOLVE
+    }
+
+    public enum Outcome {
+        CONVERGED,
+        /**
+         * The iterations limit was reached.
+         */
+        ITERATIONS_LIMIT,
+        /**
+         * The approximation became NaN or infinite.
+         */
+        DIVERGED,
+        /**
+         * The method cannot go on: zero pivot, non-positive curvature, zero denominator.
+         */
+        BREAKDOWN,
+        /**
+         * The updated residual converged, but the true one did not.
+         */
+        INACCURATE
+    }
+
+    /**
+     * Listener which ignores everything.
+     */
+    public static final SolverListener NONE = new SolverListener() {
+    };
+
+    /**
+     * Called when a solve starts.
+     */
+    public default void onStart(Solver solver, LinearEquationsSystem s) {
+    }
+
+    /**
+     * Called when a phase ends.
+     *
+     * @param nanos Wall time of the phase.
+     */
+    public default void onPhase(Phase phase, long nanos) {
+    }
+
+    /**
+     * @return k to get every k-th iteration in {@link #onIteration}, 0 to get none.
+     */
+    public default int getIterationInterval() {
+        return 0;
+    }
+
+    /**
+     * Called after an iteration.
+     *
+     * @param iteration Number of the iteration, from 1.
+     * @param norm      Norm the solver checks convergence with: the residual |b - Ax|, or the update
+     *                  |x' - x| for Jacobi method.
+     */
+    public default void onIteration(int iteration, double norm) {
+    }
+
+    /**
+     * Called when a solve ends, before it returns.
+     *
+     * @param outcome    Why it ended; the solution is null unless it is CONVERGED.
+     * @param iterations Number of iterations made.
+     * @param products   Number of products of the operator by vector, a Seidel sweep counts as one.
+     */
+    public default void onFinish(Outcome outcome, int iterations, long products) {
+    }
+}
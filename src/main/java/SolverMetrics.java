@@ -0,0 +1,162 @@
+import java.util.Arrays;
+
+/**
+ * {@link SolverListener} which keeps the metrics of the last solve: phase times, number of products,
+ * outcome and the history of the convergence norms.
+ * <p>
+ * By default every iteration is recorded, and the history grows with the iterations.
+ * In sampling mode only every interval-th iteration is recorded into a ring of the last capacity
+ * samples allocated in advance, so the metrics can stay on in production: the solver makes
+ * a comparison per iteration and a store per sample, and nothing is allocated.
+ */
+public class SolverMetrics implements SolverListener {
+
+    private final int interval;
+    private final boolean bounded;
+    private int[] sampleIterations;
+    private double[] sampleNorms;
+    private int samples;
+
+    private String solver;
+    private int dimensions;
+    private long setupNanos;
+    private long solveNanos;
+    private Outcome outcome;
+    private int iterations;
+    private long products;
+
+    /**
+     * Records every iteration.
+     */
+    public SolverMetrics() {
+        this.interval = 1;
+        this.bounded = false;
+        this.sampleIterations = new int[64];
+        this.sampleNorms = new double[64];
+    }
+
+    /**
+     * Sampling mode.
+     *
+     * @param interval Every interval-th iteration is recorded.
+     * @param capacity Number of the last samples to keep.
+     */
+    public SolverMetrics(int interval, int capacity) {
+        if (interval <= 0 || capacity <= 0)
+            throw new IllegalArgumentException("Interval and capacity should be positive.");
+        this.interval = interval;
+        this.bounded = true;
+        this.sampleIterations = new int[capacity];
+        this.sampleNorms = new double[capacity];
+    }
+
+    @Override
+    public void onStart(Solver solver, LinearEquationsSystem s) {
+        this.solver = solver.getClass().getSimpleName();
+        dimensions = s.b.getDimensions();
+        setupNanos = 0;
+        solveNanos = 0;
+        outcome = null;
+        iterations = 0;
+        products = 0;
+        samples = 0;
+    }
+
+    @Override
+    public void onPhase(Phase phase, long nanos) {
+        if (phase == Phase.SETUP) {
+            setupNanos += nanos;
+        } else {
+            solveNanos += nanos;
+        }
+    }
+
+    @Override
+    public int getIterationInterval() {
+        return interval;
+    }
+
+    @Override
+    public void onIteration(int iteration, double norm) {
+        int position = samples;
+        if (bounded) {
+            position = samples % sampleNorms.length;
+        } else if (samples == sampleNorms.length) {
+            sampleIterations = Arrays.copyOf(sampleIterations, samples * 2);
+            sampleNorms = Arrays.copyOf(sampleNorms, samples * 2);
+        }
+        sampleIterations[position] = iteration;
+        sampleNorms[position] = norm;
+        ++samples;
+    }
+
+    @Override
+    public void onFinish(Outcome outcome, int iterations, long products) {
+        this.outcome = outcome;
+        this.iterations = iterations;
+        this.products = products;
+    }
+
+    /**
+     * @return Simple class name of the solver.
+     */
+    public String getSolver() {
+        return solver;
+    }
+
+    public long getSetupNanos() {
+        return setupNanos;
+    }
+
+    public long getSolveNanos() {
+        return solveNanos;
+    }
+
+    /**
+     * @return How the last solve ended, null if it has not ended.
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return Number of products of the operator by vector.
+     */
+    public long getProducts() {
+        return products;
+    }
+
+    /**
+     * @return Numbers of the recorded iterations, oldest first.
+     */
+    public int[] getSampleIterations() {
+        int[] result = new int[Math.min(samples, sampleIterations.length)];
+        int first = samples - result.length;
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = sampleIterations[(first + i) % sampleIterations.length];
+        }
+        return result;
+    }
+
+    /**
+     * @return Convergence norms of the recorded iterations, oldest first.
+     */
+    public double[] getSampleNorms() {
+        double[] result = new double[Math.min(samples, sampleNorms.length)];
+        int first = samples - result.length;
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = sampleNorms[(first + i) % sampleNorms.length];
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s, n = %d: %s in %d iterations, %d products, setup %.3f ms, solve %.3f ms",
+                solver, dimensions, outcome, iterations, products, setupNanos / 1e6, solveNanos / 1e6);
+    }
+}
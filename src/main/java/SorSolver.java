@@ -1,30 +1,107 @@
 /**
+ * Solves linear equations systems with successive over-relaxation: every component of a Seidel sweep
+ * becomes x'_i = (1 - w) x_i + w * (its Seidel value). Like {@link SeidelSolver}, it can sweep
+ * the rows in multicolor order in parallel.
+ * <p>
+ * The relaxation factor w is chosen during the solve, without restarts. The sweeps start as Seidel
+ * method (w = 1) and track the ratio of successive update norms |x' - x|, which tends to the spectral
+ * radius lambda of the iteration. When the ratio settles, the spectral radius mu of Jacobi method is
+ * estimated from it, mu^2 = (lambda + w - 1)^2 / (lambda w^2), and w is raised to Young's optimal factor
+ * 2 / (1 + sqrt(1 - mu^2)). These estimates of mu approach it from below, so for the matrices the formula
+ * holds for (consistently ordered ones, e.g. grid stencils) w grows up to the optimum without overshooting.
+ * If the updates keep growing instead, w is decreased, below 1 if needed, and the sweeps go on
+ * from the current approximation.
+ * <p>
  * Created by Sergey on 21.02.2015.
  */
 public class SorSolver extends SeidelSolver {
 
+    /**
+     * Number of sweeps the update ratio should stay the same for to estimate w from it.
+     */
+    public static final int SETTLING_SWEEPS = 3;
+
+    /**
+     * Relative difference of update ratios which is considered the same.
+     */
+    public static final double SETTLING_TOLERANCE = 0.01;
+
+    /**
+     * Number of sweeps in a row with growing updates after which w is decreased.
+     */
+    public static final int GROWTH_SWEEPS = 5;
+
     public SorSolver(int iterationsLimit) {
         super(iterationsLimit);
     }
 
-    int iterations = 0;
+    /**
+     * @param iterationsLimit Maximal number of sweeps.
+     * @param execution       How to run the rows of a color in multicolor mode, null for the natural order.
+     */
+    public SorSolver(int iterationsLimit, ParallelExecution execution) {
+        super(iterationsLimit, execution);
+    }
+
+    /**
+     * @param iterationsLimit Maximal number of sweeps.
+     * @param execution       How to run the rows of a color in multicolor mode, null for the natural order.
+     * @param criterion       When to stop.
+     * @param checkInterval   Number of sweeps between convergence checks.
+     */
+    public SorSolver(int iterationsLimit, ParallelExecution execution, Criterion criterion, int checkInterval) {
+        super(iterationsLimit, execution, criterion, checkInterval);
+    }
 
     @Override
-    public Solution solve(LinearEquationsSystem s, double epsilon) {
-        while (currentRelaxation > 1e-5) {
-            Solution solution = super.solve(s, epsilon);
-            if (solution != null)
-                return new Solution(iterations + solution.iterations, solution.vector);
-            iterations += iterationsLimit;
-            currentRelaxation /= 1.25;
-        }
-        return null;
+    protected Relaxation createRelaxation() {
+        return new AdaptiveRelaxation();
     }
 
-    double currentRelaxation = 1.8;
+    private static class AdaptiveRelaxation extends Relaxation {
 
-    @Override
-    protected Vector seidelProduct(Matrix a, Vector x, Vector b) {
-        return super.seidelProduct(a, x, b).multiply(currentRelaxation).add(x.multiply(1 - currentRelaxation));
+        private double previousUpdate = Double.NaN;
+        private double previousRatio = Double.NaN;
+        private int settled = 0;
+        private int growing = 0;
+
+        /**
+         * Upper bound of w, the smallest factor the updates grew with so far.
+         */
+        private double maximum = 2;
+
+        @Override
+        protected void afterSweep(Vector x, Vector nextX) {
+            double update = Vector.distance(x, nextX);
+            double ratio = update / previousUpdate;
+            previousUpdate = update;
+            if (Double.isNaN(ratio))
+                return;
+            if (ratio >= 1) {
+                settled = 0;
+                previousRatio = Double.NaN;
+                if (++growing >= GROWTH_SWEEPS) {
+                    growing = 0;
+                    maximum = factor;
+                    factor = factor > 1 ? 1 + (factor - 1) / 2 : factor / 1.25;
+                }
+                return;
+            }
+            growing = 0;
+            settled = Math.abs(ratio - previousRatio) <= SETTLING_TOLERANCE * ratio ? settled + 1 : 0;
+            previousRatio = ratio;
+            if (settled < SETTLING_SWEEPS)
+                return;
+            double shifted = ratio + factor - 1;
+            double jacobiRadius2 = shifted * shifted / (ratio * factor * factor);
+            if (!(jacobiRadius2 < 1))
+                return;
+            double optimal = Math.min(2 / (1 + Math.sqrt(1 - jacobiRadius2)), (factor + maximum) / 2);
+            if (optimal > factor * (1 + SETTLING_TOLERANCE)) {
+                factor = optimal;
+                settled = 0;
+                previousRatio = Double.NaN;
+            }
+        }
     }
 }
@@ -0,0 +1,322 @@
+import java.util.Arrays;
+
+/**
+ * Represents a rectangular sparse matrix of doubles in CSR (compressed sparse row) format.
+ * <p/>
+ * Non-zero items of row i are values[rowPointers[i]..rowPointers[i + 1]), their columns
+ * are in columns[] at the same positions, sorted ascending. Only these items are stored and
+ * visited, so multiplying by vector costs O(nnz) instead of O(n^2).
+ */
+public class SparseMatrix implements LinearOperator {
+
+    final int[] rowPointers;
+    final int[] columns;
+    final double[] values;
+    private final int height;
+    private final int width;
+    private volatile MatrixColoring coloring;
+
+    SparseMatrix(int height, int width, int[] rowPointers, int[] columns, double[] values) {
+        if (height <= 0 || width <= 0)
+            throw new IllegalArgumentException("Matrix should have non-zero size.");
+        if (rowPointers.length != height + 1 || columns.length < rowPointers[height]
+                || values.length < rowPointers[height])
+            throw new IllegalArgumentException("CSR arrays do not match the matrix size.");
+        this.height = height;
+        this.width = width;
+        this.rowPointers = rowPointers;
+        this.columns = columns;
+        this.values = values;
+    }
+
+    /**
+     * Builds a matrix from coordinate (COO) triplets. Duplicate coordinates are summed up.
+     *
+     * @param height Matrix height.
+     * @param width  Matrix width.
+     * @param rows   Row of each item.
+     * @param columns Column of each item.
+     * @param values Value of each item.
+     * @return A with A[rows[k], columns[k]] += values[k] for all k.
+     */
+    public static SparseMatrix fromTriplets(int height, int width, int[] rows, int[] columns, double[] values) {
+        if (rows.length != columns.length || rows.length != values.length)
+            throw new IllegalArgumentException("Triplet arrays should have the same length.");
+        return fromTriplets(height, width, rows, columns, values, rows.length);
+    }
+
+    static SparseMatrix fromTriplets(int height, int width, int[] rows, int[] columns, double[] values,
+                                     int count) {
+        for (int k = 0; k < count; ++k) {
+            if (rows[k] < 0 || rows[k] >= height || columns[k] < 0 || columns[k] >= width)
+                throw new IllegalArgumentException("Item (" + rows[k] + ", " + columns[k] + ") is out of matrix bounds.");
+        }
+        // Two stable counting sorts, by column then by row, give row-major order with sorted columns.
+        int[] byColumn = countingSort(columns, count, width, null);
+        int[] order = countingSort(rows, count, height, byColumn);
+
+        int[] rowPointers = new int[height + 1];
+        int[] resultColumns = new int[count];
+        double[] resultValues = new double[count];
+        int size = 0;
+        int previousRow = -1;
+        int previousColumn = -1;
+        for (int k = 0; k < count; ++k) {
+            int index = order[k];
+            int row = rows[index];
+            int column = columns[index];
+            if (row == previousRow && column == previousColumn) {
+                resultValues[size - 1] += values[index];
+            } else {
+                resultColumns[size] = column;
+                resultValues[size] = values[index];
+                ++size;
+                ++rowPointers[row + 1];
+                previousRow = row;
+                previousColumn = column;
+            }
+        }
+        for (int i = 0; i < height; ++i) {
+            rowPointers[i + 1] += rowPointers[i];
+        }
+        return new SparseMatrix(height, width, rowPointers,
+                Arrays.copyOf(resultColumns, size), Arrays.copyOf(resultValues, size));
+    }
+
+    private static int[] countingSort(int[] keys, int count, int range, int[] order) {
+        int[] starts = new int[range + 1];
+        for (int k = 0; k < count; ++k) {
+            ++starts[keys[k] + 1];
+        }
+        for (int i = 0; i < range; ++i) {
+            starts[i + 1] += starts[i];
+        }
+        int[] result = new int[count];
+        for (int k = 0; k < count; ++k) {
+            int index = order == null ? k : order[k];
+            result[starts[keys[index]]++] = index;
+        }
+        return result;
+    }
+
+    /**
+     * Makes a sparse copy of a dense matrix, keeping only its non-zero items.
+     *
+     * @param m Dense matrix.
+     * @return A = m
+     */
+    public static SparseMatrix of(Matrix m) {
+        Builder builder = new Builder(m.getHeight(), m.getWidth());
+        for (int i = 0; i < m.getHeight(); ++i) {
+            for (int j = 0; j < m.getWidth(); ++j) {
+                builder.add(i, j, m.get(i, j));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Collects coordinate triplets and compresses them into a {@link SparseMatrix}.
+     */
+    public static class Builder {
+
+        private final int height;
+        private final int width;
+        private int[] rows = new int[16];
+        private int[] columns = new int[16];
+        private double[] values = new double[16];
+        private int count = 0;
+
+        public Builder(int height, int width) {
+            this.height = height;
+            this.width = width;
+        }
+
+        /**
+         * Adds value to item [i, j]. Zero values are skipped.
+         */
+        public Builder add(int i, int j, double value) {
+            if (value == 0) {
+                return this;
+            }
+            if (count == rows.length) {
+                int capacity = count * 2;
+                rows = Arrays.copyOf(rows, capacity);
+                columns = Arrays.copyOf(columns, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            rows[count] = i;
+            columns[count] = j;
+            values[count] = value;
+            ++count;
+            return this;
+        }
+
+        public SparseMatrix build() {
+            return fromTriplets(height, width, rows, columns, values, count);
+        }
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return Number of stored items.
+     */
+    public int getNonZeros() {
+        return rowPointers[height];
+    }
+
+    /**
+     * @return max |i - j| of the stored items.
+     */
+    public int getBandwidth() {
+        int result = 0;
+        for (int i = 0; i < height; ++i) {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; ++k) {
+                result = Math.max(result, Math.abs(i - columns[k]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Coloring of the nonzero pattern, computed on the first call.
+     */
+    public MatrixColoring getColoring() {
+        MatrixColoring result = coloring;
+        if (result == null) {
+            coloring = result = MatrixColoring.of(this);
+        }
+        return result;
+    }
+
+    /**
+     * Returns an item at i-th row, j-th column, searching the row in O(log nnz_i).
+     *
+     * @param i Row
+     * @param j Column
+     * @return Matrix item at i-th row, j-th column
+     */
+    public double get(int i, int j) {
+        int index = Arrays.binarySearch(columns, rowPointers[i], rowPointers[i + 1], j);
+        return index < 0 ? 0 : values[index];
+    }
+
+    @Override
+    public void apply(Vector in, Vector out) {
+        if (width != in.getDimensions() || height != out.getDimensions())
+            throw new IllegalArgumentException("Vector cannot be multiplied due to its dimensions.");
+        applyRows(in, out, 0, height);
+    }
+
+    @Override
+    public void apply(final Vector in, final Vector out, ParallelExecution execution) {
+        if (width != in.getDimensions() || height != out.getDimensions())
+            throw new IllegalArgumentException("Vector cannot be multiplied due to its dimensions.");
+        execution.forRange(height, (from, to) -> applyRows(in, out, from, to));
+    }
+
+    private void applyRows(Vector in, Vector out, int from, int to) {
+        for (int i = from; i < to; ++i) {
+            double sum = 0;
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; ++k) {
+                sum += values[k] * in.get(columns[k]);
+            }
+            out.set(i, sum);
+        }
+    }
+
+    @Override
+    public boolean hasTranspose() {
+        return true;
+    }
+
+    @Override
+    public void applyTransposed(Vector in, Vector out) {
+        if (height != in.getDimensions() || width != out.getDimensions())
+            throw new IllegalArgumentException("Vector cannot be multiplied due to its dimensions.");
+        out.fill(0);
+        for (int i = 0; i < height; ++i) {
+            double factor = in.get(i);
+            if (factor == 0) {
+                continue;
+            }
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; ++k) {
+                int j = out.offset + columns[k] * out.stride;
+                out.data[j] += values[k] * factor;
+            }
+        }
+    }
+
+    @Override
+    public boolean hasDiagonal() {
+        return true;
+    }
+
+    @Override
+    public double[] getDiagonal() {
+        double[] result = new double[height];
+        for (int i = 0; i < height; ++i) {
+            result[i] = get(i, i);
+        }
+        return result;
+    }
+
+    @Override
+    public Matrix toDense() {
+        double[] result = new double[height * width];
+        for (int i = 0; i < height; ++i) {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; ++k) {
+                result[i * width + columns[k]] = values[k];
+            }
+        }
+        return new Matrix(height, width, result);
+    }
+
+    /**
+     * Calculates the matrix l-norm.
+     *
+     * @return ||A||_1 = max {1..m} { Sum {1..n} |a_ij| }
+     */
+    public double norm1() {
+        double[] sums = new double[width];
+        int count = getNonZeros();
+        for (int k = 0; k < count; ++k) {
+            sums[columns[k]] += Math.abs(values[k]);
+        }
+        double max = 0.;
+        for (double sum : sums) {
+            if (sum > max) {
+                max = sum;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Calculates the matrix m-norm.
+     *
+     * @return ||A|| = max {1..n} { Sum {1..m} |a_ij| }
+     */
+    public double norm() {
+        double max = 0.;
+        for (int i = 0; i < height; ++i) {
+            double sum = 0.;
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; ++k) {
+                sum += Math.abs(values[k]);
+            }
+            if (sum > max) {
+                max = sum;
+            }
+        }
+        return max;
+    }
+}
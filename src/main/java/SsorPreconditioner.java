@@ -0,0 +1,52 @@
+/**
+ * Symmetric successive over-relaxation preconditioner,
+ * M = w / (2 - w) * (D / w + L) (D / w)^-1 (D / w + U), where A = L + D + U.
+ * <p>
+ * Applying it is one forward and one backward Seidel sweep over the stored items, O(nnz).
+ * For a symmetric positive definite A and 0 < w < 2, M is symmetric positive definite as well,
+ * so it can be used with conjugate gradient method.
+ */
+public class SsorPreconditioner implements Preconditioner {
+
+    private final SparseMatrix a;
+    private final double[] diagonal;
+    private final double relaxation;
+
+    public SsorPreconditioner(LinearOperator a, double relaxation) {
+        if (!(relaxation > 0 && relaxation < 2))
+            throw new IllegalArgumentException("Relaxation factor should be in (0, 2).");
+        this.a = a instanceof SparseMatrix ? (SparseMatrix) a : SparseMatrix.of(a.toDense());
+        this.diagonal = this.a.getDiagonal();
+        for (double d : diagonal) {
+            if (d == 0)
+                throw new IllegalArgumentException("SSOR preconditioner needs non-zero diagonal items.");
+        }
+        this.relaxation = relaxation;
+    }
+
+    public SsorPreconditioner(LinearOperator a) {
+        this(a, 1);
+    }
+
+    @Override
+    public void apply(Vector r, Vector z) {
+        int n = diagonal.length;
+        // (D / w + L) y = r
+        for (int i = 0; i < n; ++i) {
+            double sum = r.get(i);
+            for (int k = a.rowPointers[i]; k < a.rowPointers[i + 1] && a.columns[k] < i; ++k) {
+                sum -= a.values[k] * z.get(a.columns[k]);
+            }
+            z.set(i, sum * relaxation / diagonal[i]);
+        }
+        // (D / w + U) z = (2 - w) / w * (D / w) y
+        double scale = (2 - relaxation) / relaxation;
+        for (int i = n - 1; i >= 0; --i) {
+            double sum = scale * diagonal[i] / relaxation * z.get(i);
+            for (int k = a.rowPointers[i + 1] - 1; k >= a.rowPointers[i] && a.columns[k] > i; --k) {
+                sum -= a.values[k] * z.get(a.columns[k]);
+            }
+            z.set(i, sum * relaxation / diagonal[i]);
+        }
+    }
+}
@@ -2,27 +2,63 @@
  * Created by Sergey on 19.02.2015.
  *
  * Represents an n-dimensional vector
+ * <p>
+ * Component i is stored at data[offset + i * stride], which lets a vector be a view
+ * of a matrix row or column without copying.
+ * <p>
+ * add, subtract and multiply return new vectors. The in-place operations ({@link #axpy},
+ * {@link #scaleInPlace}, {@link #copyInto}, {@link #fill}) change this vector and allocate nothing,
+ * so that iterative solvers can reuse their work vectors between iterations.
  */
 public class Vector implements Cloneable {
 
-    private double[] components;
+    final double[] data;
+    final int offset;
+    final int stride;
+    private final int dimensions;
 
     public double[] getComponents() {
-        return components.clone();
+        if (offset == 0 && stride == 1 && data.length == dimensions)
+            return data.clone();
+        double[] result = new double[dimensions];
+        for (int i = 0; i < dimensions; ++i) {
+            result[i] = data[offset + i * stride];
+        }
+        return result;
     }
 
     public Vector(double... components) {
         if (components == null)
             throw new IllegalArgumentException("Vector components cannot be null.");
-        this.components = components;
+        this.data = components;
+        this.offset = 0;
+        this.stride = 1;
+        this.dimensions = components.length;
+    }
+
+    Vector(double[] data, int offset, int stride, int dimensions) {
+        this.data = data;
+        this.offset = offset;
+        this.stride = stride;
+        this.dimensions = dimensions;
     }
 
     public int getDimensions() {
-        return components.length;
+        return dimensions;
     }
 
     public double get(int component) {
-        return components[component];
+        return data[offset + component * stride];
+    }
+
+    /**
+     * Sets a component. If this vector is a view of a matrix row or column, the matrix changes too.
+     *
+     * @param component Component index.
+     * @param value     New value.
+     */
+    public void set(int component, double value) {
+        data[offset + component * stride] = value;
     }
 
     public Vector add(Vector that) {
@@ -34,7 +70,11 @@ public class Vector implements Cloneable {
     }
 
     public Vector subtract(Vector that) {
-        return add(that.multiply(-1));
+        double[] newComponents = new double[getDimensions()];
+        for (int i = 0; i < newComponents.length; ++i) {
+            newComponents[i] = get(i) - that.get(i);
+        }
+        return new Vector(newComponents);
     }
 
     public Vector multiply(double a) {
@@ -45,11 +85,68 @@ public class Vector implements Cloneable {
         return new Vector(newComponents);
     }
 
+    /**
+     * Adds a multiple of another vector to this one in place.
+     *
+     * @param a Factor.
+     * @param x Vector of the same dimension.
+     * @return This vector, this = this + a * x.
+     */
+    public Vector axpy(double a, Vector x) {
+        if (getDimensions() != x.getDimensions())
+            throw new IllegalArgumentException("Vectors should be of the same dimension.");
+        for (int i = 0; i < dimensions; ++i) {
+            data[offset + i * stride] += a * x.data[x.offset + i * x.stride];
+        }
+        return this;
+    }
+
+    /**
+     * Multiplies this vector by a number in place.
+     *
+     * @return This vector, this = a * this.
+     */
+    public Vector scaleInPlace(double a) {
+        for (int i = 0; i < dimensions; ++i) {
+            data[offset + i * stride] *= a;
+        }
+        return this;
+    }
+
+    /**
+     * Copies the components of this vector into another one.
+     *
+     * @param target Vector of the same dimension, should not overlap this one.
+     * @return target
+     */
+    public Vector copyInto(Vector target) {
+        if (getDimensions() != target.getDimensions())
+            throw new IllegalArgumentException("Vectors should be of the same dimension.");
+        if (stride == 1 && target.stride == 1) {
+            System.arraycopy(data, offset, target.data, target.offset, dimensions);
+        } else {
+            for (int i = 0; i < dimensions; ++i) {
+                target.data[target.offset + i * target.stride] = data[offset + i * stride];
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Sets all the components to value.
+     *
+     * @return This vector.
+     */
+    public Vector fill(double value) {
+        for (int i = 0; i < dimensions; ++i) {
+            data[offset + i * stride] = value;
+        }
+        return this;
+    }
+
     @Override
     protected Object clone() throws CloneNotSupportedException {
-        Vector result = (Vector)super.clone();
-        result.components = result.components.clone();
-        return result;
+        return new Vector(getComponents());
     }
 
     @Override
@@ -73,11 +170,21 @@ public class Vector implements Cloneable {
      * @return A number -- (this, v), which is scalar product.
      */
     public double product(Vector v) {
+        return dot(v);
+    }
+
+    /**
+     * Calculates scalar product with another vector, same as {@link #product(Vector)}.
+     *
+     * @param v Another vector.
+     * @return (this, v) = Sum {1..n} this_i v_i
+     */
+    public double dot(Vector v) {
         if (getDimensions() != v.getDimensions())
-            throw new IllegalArgumentException();
+            throw new IllegalArgumentException("Vectors should be of the same dimension.");
         double result = 0;
-        for (int i = 0; i < getDimensions(); ++i) {
-            result += get(i) * v.get(i);
+        for (int i = 0; i < dimensions; ++i) {
+            result += data[offset + i * stride] * v.data[v.offset + i * v.stride];
         }
         return result;
     }
@@ -101,13 +208,22 @@ public class Vector implements Cloneable {
 
     public boolean hasNaN() {
         for (int i = 0; i < getDimensions(); ++i) {
-            if (get(i) == Double.NaN) {
+            if (Double.isNaN(get(i))) {
                 return true;
             }
         }
         return false;
     }
 
+    public boolean isZero() {
+        for (int i = 0; i < getDimensions(); ++i) {
+            if (get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public int hashCode() {
         int hash = 0;
@@ -125,7 +241,16 @@ public class Vector implements Cloneable {
      * @return |a| = sqrt(Sum {1..n} a_i^2)
      */
     public double norm() {
-        return Vector.distance(this, Vector.zero(getDimensions()));
+        return norm2();
+    }
+
+    /**
+     * Calculates the Euclidean (2-) norm of vector without allocating.
+     *
+     * @return |a| = sqrt(Sum {1..n} a_i^2)
+     */
+    public double norm2() {
+        return Math.sqrt(dot(this));
     }
 
     /**
@@ -0,0 +1,153 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests the choice of methods by {@link AutoSolver}.
+ */
+public class AutoSolverTest {
+
+    public static final double EPSILON = 1e-8;
+
+    /**
+     * 5-point stencil on a side x side grid with convection of the given strength along the rows,
+     * symmetric for zero convection.
+     */
+    private static SparseMatrix grid(int side, double diagonal, double convection) {
+        int n = side * side;
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(n, n);
+        for (int i = 0; i < side; ++i) {
+            for (int j = 0; j < side; ++j) {
+                int k = i * side + j;
+                builder.add(k, k, diagonal);
+                if (i > 0) builder.add(k, k - side, -1);
+                if (i < side - 1) builder.add(k, k + side, -1);
+                if (j > 0) builder.add(k, k - 1, -1 - convection);
+                if (j < side - 1) builder.add(k, k + 1, -1 + convection);
+            }
+        }
+        return builder.build();
+    }
+
+    private static Vector right(int n) {
+        double[] result = new double[n];
+        for (int i = 0; i < n; ++i) {
+            result[i] = i % 7 - 3;
+        }
+        return new Vector(result);
+    }
+
+    private static AutoSolver.Report check(AutoSolver solver, LinearOperator a, AutoSolver.Route route) {
+        Vector b = right(a.getHeight());
+        AutoSolver.Report report = solver.solveWithReport(new LinearEquationsSystem(a, b), EPSILON);
+        Assert.assertEquals(report.toString(), route, report.getRoute());
+        Assert.assertTrue(Vector.distance(a.multiply(report.solution.vector), b) < EPSILON * 100);
+        return report;
+    }
+
+    @Test
+    public void testDirect() {
+        AutoSolver solver = new AutoSolver();
+        AutoSolver.Report report = check(solver, grid(10, 4, 0).toDense(), AutoSolver.Route.CHOLESKY);
+        Assert.assertTrue(report.analysis.symmetric && report.analysis.positiveDiagonal);
+        Assert.assertEquals(10, report.analysis.bandwidth);
+        Assert.assertEquals(1, report.attempts.size());
+
+        check(solver, grid(10, 4, 0.5), AutoSolver.Route.GAUSS);
+
+        // symmetric with positive diagonal, but indefinite: Cholesky fails, Gauss follows
+        report = check(solver, Matrix.parse("{1, 2}, {2, 1}"), AutoSolver.Route.GAUSS);
+        Assert.assertEquals(2, report.attempts.size());
+        Assert.assertEquals(AutoSolver.Route.CHOLESKY, report.attempts.get(0).route);
+        Assert.assertEquals(SolverListener.Outcome.BREAKDOWN, report.attempts.get(0).outcome);
+
+        report = new AutoSolver(100, false).solveWithReport(
+                new LinearEquationsSystem(Matrix.parse("{1, 2}, {2, 1}"), new Vector(1, 1)), EPSILON);
+        Assert.assertNull(report.solution);
+        Assert.assertEquals(1, report.attempts.size());
+
+        LinearEquationsSystem prepared = new LinearEquationsSystem(grid(5, 4, 0), right(25)).prepare();
+        report = solver.solveWithReport(prepared, EPSILON);
+        Assert.assertNull(report.analysis);
+        Assert.assertEquals(AutoSolver.Route.GAUSS, report.getRoute());
+    }
+
+    @Test
+    public void testIterative() {
+        AutoSolver solver = new AutoSolver();
+        AutoSolver.Report report = check(solver, grid(40, 4, 0), AutoSolver.Route.CHOLESKY);
+        Assert.assertEquals(40 * 40 * 5 - 4 * 40, report.analysis.nonZeros);
+        Assert.assertEquals(40, report.analysis.bandwidth);
+        // the band is too wide for Cholesky
+        check(solver, grid(70, 4, 0), AutoSolver.Route.CONJUGATE_GRADIENT);
+        check(solver, grid(40, 5, 0.5), AutoSolver.Route.SOR);
+        report = check(solver, grid(40, 4, 0.5), AutoSolver.Route.BICGSTAB);
+        Assert.assertFalse(report.analysis.symmetric || report.analysis.diagonallyDominant);
+
+        // matrix-free stencil, only its products and diagonal are known
+        SparseMatrix stencil = grid(40, 4, 0);
+        LinearOperator matrixFree = new LinearOperator() {
+            @Override
+            public int getHeight() {
+                return stencil.getHeight();
+            }
+
+            @Override
+            public int getWidth() {
+                return stencil.getWidth();
+            }
+
+            @Override
+            public void apply(Vector in, Vector out) {
+                stencil.apply(in, out);
+            }
+
+            @Override
+            public boolean hasDiagonal() {
+                return true;
+            }
+
+            @Override
+            public double[] getDiagonal() {
+                return stencil.getDiagonal();
+            }
+        };
+        report = check(solver, matrixFree, AutoSolver.Route.CONJUGATE_GRADIENT);
+        Assert.assertFalse(report.analysis.stored);
+        Assert.assertTrue(report.analysis.symmetric);
+        Assert.assertFalse(AutoSolver.analyze(grid(4, 4, 0.5)).symmetric);
+    }
+
+    @Test
+    public void testCholesky() {
+        Random random = new Random(4);
+        Matrix m = new Matrix(random.doubles(900).map(x -> x - 0.5).toArray());
+        double[] data = new double[900];
+        for (int i = 0; i < 30; ++i) {
+            for (int j = 0; j < 30; ++j) {
+                for (int k = 0; k < 30; ++k) {
+                    data[i * 30 + j] += m.get(0, i * 30 + k) * m.get(0, j * 30 + k);
+                }
+            }
+            data[i * 30 + i] += 1;
+        }
+        Matrix a = new Matrix(30, 30, data);
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(a);
+        Assert.assertTrue(cholesky.isPositiveDefinite());
+        Matrix l = cholesky.getL();
+        Assert.assertTrue(l.multiply(l.transponed()).equals(a, 1e-10));
+        Assert.assertEquals(new LUDecomposition(a).determinant(), cholesky.determinant(), 1e-6 * cholesky.determinant());
+        Vector b = right(30);
+        Assert.assertTrue(a.multiply(cholesky.solve(b)).equals(b, 1e-9));
+        Assert.assertFalse(new CholeskyDecomposition(Matrix.parse("{1, 2}, {2, 1}")).isPositiveDefinite());
+
+        SparseMatrix band = grid(12, 4, 0);
+        CholeskyDecomposition banded = new CholeskyDecomposition(band, band.getBandwidth());
+        CholeskyDecomposition full = new CholeskyDecomposition(band.toDense());
+        Assert.assertEquals(12, banded.getBandwidth());
+        Assert.assertTrue(full.getL().equals(banded.getL(), 1e-12));
+        Assert.assertEquals(full.determinant(), banded.determinant(), 1e-10 * full.determinant());
+        Assert.assertTrue(full.solve(right(144)).equals(banded.solve(right(144)), 1e-12));
+    }
+}
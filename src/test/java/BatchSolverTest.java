@@ -0,0 +1,118 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Tests solving many systems at once.
+ */
+public class BatchSolverTest {
+
+    public static final double EPSILON = 1e-6;
+
+    /**
+     * Tridiagonal system (-1, 4, -1) of size n with right part (1, 2, ..., n).
+     */
+    private static LinearEquationsSystem system(int n) {
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(n, n);
+        double[] right = new double[n];
+        for (int i = 0; i < n; ++i) {
+            builder.add(i, i, 4);
+            if (i > 0) builder.add(i, i - 1, -1);
+            if (i < n - 1) builder.add(i, i + 1, -1);
+            right[i] = i + 1;
+        }
+        return new LinearEquationsSystem(builder.build(), new Vector(right));
+    }
+
+    private static List<LinearEquationsSystem> batch() {
+        List<LinearEquationsSystem> systems = new ArrayList<>();
+        for (int i = 0; i < 60; ++i) {
+            systems.add(system(i % 10 == 0 ? 20000 : 1 + i));
+        }
+        return systems;
+    }
+
+    @Test
+    public void testInOrder() {
+        List<LinearEquationsSystem> systems = batch();
+        Solver solver = new SeidelSolver(10000);
+        List<Solution> solutions = new BatchSolver(solver, EPSILON).solveAll(systems.stream());
+        Assert.assertEquals(systems.size(), solutions.size());
+        for (int i = 0; i < systems.size(); ++i) {
+            Assert.assertEquals(solver.solve(systems.get(i), EPSILON).vector, solutions.get(i).vector);
+        }
+    }
+
+    @Test
+    public void testAsCompleted() {
+        List<LinearEquationsSystem> systems = batch();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            BatchSolver batchSolver = new BatchSolver(new ConjugateGradientSolver(10000), EPSILON, executor, 4);
+            List<BatchSolver.Result> results = batchSolver.solveAsCompleted(systems).collect(Collectors.toList());
+            Assert.assertEquals(systems.size(), results.size());
+            boolean[] seen = new boolean[systems.size()];
+            for (BatchSolver.Result result : results) {
+                Assert.assertFalse(seen[result.index]);
+                seen[result.index] = true;
+                Assert.assertSame(systems.get(result.index), result.system);
+                Assert.assertNull(result.error);
+                Vector b = result.system.b;
+                Assert.assertTrue(result.system.a.multiply(result.solution.vector).equals(b, EPSILON * 10));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSchedule() {
+        BatchSolver.Schedule schedule = new BatchSolver.Schedule(new long[]{5, 1, 9, 3, 7});
+        Assert.assertEquals(2, schedule.next(true));
+        Assert.assertEquals(1, schedule.next(false));
+        Assert.assertEquals(3, schedule.next(false));
+        Assert.assertEquals(4, schedule.next(true));
+        Assert.assertEquals(0, schedule.next(false));
+        Assert.assertEquals(-1, schedule.next(true));
+        Assert.assertEquals(-1, schedule.next(false));
+    }
+
+    @Test
+    public void testFailures() {
+        List<LinearEquationsSystem> systems = new ArrayList<>();
+        systems.add(system(5));
+        systems.add(new LinearEquationsSystem(new LinearOperator() {
+            @Override
+            public int getHeight() {
+                return 1;
+            }
+
+            @Override
+            public int getWidth() {
+                return 1;
+            }
+
+            @Override
+            public void apply(Vector in, Vector out) {
+                out.set(0, in.get(0));
+            }
+        }, new Vector(1)));
+        systems.add(system(7));
+        List<BatchSolver.Result> results = new BatchSolver(new JacobiSolver(0.9, 1000), EPSILON)
+                .solveAsCompleted(systems).collect(Collectors.toList());
+        for (BatchSolver.Result result : results) {
+            if (result.index == 1) {
+                Assert.assertTrue(result.error instanceof IllegalArgumentException);
+                Assert.assertNull(result.solution);
+            } else {
+                Assert.assertNull(result.error);
+                Assert.assertNotNull(result.solution);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Tests the binary format of matrices, vectors and systems.
+ */
+public class BinaryFormatTest {
+
+    private static Matrix random(int height, int width, long seed) {
+        Random random = new Random(seed);
+        double[][] components = new double[height][width];
+        for (int i = 0; i < height; ++i) {
+            for (int j = 0; j < width; ++j) {
+                components[i][j] = random.nextDouble() * 2 - 1;
+            }
+        }
+        return new Matrix(components);
+    }
+
+    private static SparseMatrix tridiagonal(int n) {
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(n, n);
+        for (int i = 0; i < n; ++i) {
+            builder.add(i, i, 4);
+            if (i > 0) builder.add(i, i - 1, -1);
+            if (i < n - 1) builder.add(i, i + 1, -1.5);
+        }
+        return builder.build();
+    }
+
+    private static void writeInt(Path file, long position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value);
+            buffer.flip();
+            channel.write(buffer, position);
+        }
+    }
+
+    @Test
+    public void testMatrix() throws IOException {
+        Path file = Files.createTempFile("matrix", ".bin");
+        try {
+            Matrix a = random(7, 5, 1);
+            BinaryFormat.write(file, a);
+            Assert.assertEquals(BinaryFormat.HEADER_SIZE + 7 * 5 * 8, Files.size(file));
+            Assert.assertEquals(a, BinaryFormat.readMatrix(file));
+
+            Matrix view = a.subMatrix(2, 1, 3, 3);
+            BinaryFormat.write(file, view);
+            Assert.assertEquals(view, BinaryFormat.readOperator(file));
+
+            BinaryFormat.write(file, a, BinaryFormat.DataType.FLOAT32);
+            Assert.assertEquals(BinaryFormat.HEADER_SIZE + 7 * 5 * 4, Files.size(file));
+            Assert.assertTrue(a.equals(BinaryFormat.readMatrix(file), 1e-6));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSparseMatrix() throws IOException {
+        Path file = Files.createTempFile("sparse", ".bin");
+        try {
+            SparseMatrix a = tridiagonal(11);
+            BinaryFormat.write(file, a);
+            LinearOperator read = BinaryFormat.readOperator(file);
+            Assert.assertTrue(read instanceof SparseMatrix);
+            Assert.assertEquals(a.getNonZeros(), ((SparseMatrix) read).getNonZeros());
+            Assert.assertEquals(a.toDense(), read.toDense());
+            Assert.assertEquals(a.toDense(), BinaryFormat.readMatrix(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testVectorAndSystem() throws IOException {
+        Path file = Files.createTempFile("system", ".bin");
+        try {
+            Matrix a = random(6, 6, 2);
+            Vector column = a.getColumn(3);
+            BinaryFormat.write(file, column);
+            Assert.assertEquals(column, BinaryFormat.readVector(file));
+
+            LinearEquationsSystem s = new LinearEquationsSystem(tridiagonal(5), new Vector(1, 2, 3, 4, 5));
+            BinaryFormat.write(file, s);
+            LinearEquationsSystem read = BinaryFormat.readSystem(file);
+            Assert.assertEquals(s.a.toDense(), read.a.toDense());
+            Assert.assertEquals(s.b, read.b);
+
+            s = new LinearEquationsSystem(a, column);
+            BinaryFormat.write(file, s, BinaryFormat.DataType.FLOAT32);
+            read = BinaryFormat.readSystem(file);
+            Assert.assertTrue(a.equals(read.a.toDense(), 1e-6));
+            Assert.assertTrue(column.equals(read.b, 1e-6));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testWrongContents() throws IOException {
+        Path file = Files.createTempFile("wrong", ".bin");
+        try {
+            BinaryFormat.write(file, new Vector(1, 2));
+            try {
+                BinaryFormat.readMatrix(file);
+                Assert.fail();
+            } catch (IOException e) {
+                // expected
+            }
+            Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16,
+                    17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32});
+            try {
+                BinaryFormat.readVector(file);
+                Assert.fail();
+            } catch (IOException e) {
+                // expected
+            }
+
+            // row pointers {0, 2, 5, 7} and columns of a 3x3 tridiagonal matrix follow the header
+            BinaryFormat.write(file, tridiagonal(3));
+            writeInt(file, BinaryFormat.HEADER_SIZE + 4, 6);
+            try {
+                BinaryFormat.readOperator(file);
+                Assert.fail();
+            } catch (IOException e) {
+                // expected
+            }
+            BinaryFormat.write(file, tridiagonal(3));
+            writeInt(file, BinaryFormat.HEADER_SIZE + 16, 3);
+            try {
+                BinaryFormat.readOperator(file);
+                Assert.fail();
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests condition number estimates against the exact ones.
+ */
+public class ConditionEstimatorTest {
+
+    private static Matrix random(int n, Random random) {
+        double[][] components = new double[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                components[i][j] = random.nextDouble() * 2 - 1;
+            }
+            // scaled rows make the conditioning vary
+            double scale = Math.pow(10, random.nextInt(6) - 3);
+            for (int j = 0; j < n; ++j) {
+                components[i][j] *= scale;
+            }
+        }
+        return new Matrix(components);
+    }
+
+    @Test
+    public void testTransposedSolve() {
+        Random random = new Random(1);
+        Matrix a = random(30, random);
+        Vector b = new Vector(random.doubles(30).toArray());
+        LUDecomposition lu = new LUDecomposition(a);
+        Vector x = lu.solveTransposed(b);
+        Assert.assertTrue(a.multiplyTransposed(x).equals(b, 1e-8));
+        OutOfCoreLU outOfCore = new OutOfCoreLU(OffHeapMatrix.of(a), 24L * 30 * 4);
+        Assert.assertTrue(x.equals(outOfCore.solveTransposed(b), 1e-8));
+    }
+
+    @Test
+    public void testEstimates() {
+        Random random = new Random(2);
+        for (int k = 0; k < 50; ++k) {
+            int n = 1 + random.nextInt(40);
+            Matrix a = random(n, random);
+            LUDecomposition lu = new LUDecomposition(a);
+            Matrix inverse = lu.inverse();
+
+            double exact1 = a.norm1() * inverse.norm1();
+            double estimate1 = ConditionEstimator.conditionality1(a, lu);
+            Assert.assertTrue(estimate1 <= exact1 * (1 + 1e-9));
+            Assert.assertTrue(estimate1 >= exact1 / 3);
+
+            double exact = a.norm() * inverse.norm();
+            double estimate = a.conditionality();
+            Assert.assertTrue(estimate <= exact * (1 + 1e-9));
+            Assert.assertTrue(estimate >= exact / 3);
+        }
+        Assert.assertEquals(Double.POSITIVE_INFINITY, Matrix.parse("{1, 2}, {2, 4}").conditionality(), 0);
+    }
+
+    @Test
+    public void testIterative() {
+        int n = 50;
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(n, n);
+        for (int i = 0; i < n; ++i) {
+            builder.add(i, i, 2.5);
+            if (i > 0) builder.add(i, i - 1, -1);
+            if (i < n - 1) builder.add(i, i + 1, -1);
+        }
+        SparseMatrix a = builder.build();
+        Matrix dense = a.toDense();
+        double exact = dense.norm1() * dense.reversed().norm1();
+        double estimate = ConditionEstimator.conditionality1(a, new ConjugateGradientSolver(1000), 1e-10);
+        Assert.assertTrue(estimate <= exact * (1 + 1e-6));
+        Assert.assertTrue(estimate >= exact / 3);
+        Assert.assertEquals(dense.norm1(), ConditionEstimator.norm1(a), 1e-12);
+    }
+}
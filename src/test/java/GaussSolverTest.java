@@ -1,6 +1,8 @@
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Random;
+
 /**
  * Created by viacheslav on 21.02.2015.
  */
@@ -38,4 +40,60 @@ public class GaussSolverTest {
         Assert.assertTrue(solution2.vector.equals(answer2, EPSILON));
 
     }
+
+    @Test
+    public void testPreparedSystem() throws Exception {
+        GaussSolver solver = new GaussSolver();
+
+        Matrix a = new Matrix(new double[] {50, 12, 1},
+                new double[] {11, 53, 17},
+                new double[] {10, 20, 50});
+        LinearEquationsSystem prepared = new LinearEquationsSystem(a).prepare();
+        Assert.assertTrue(prepared.isPrepared());
+
+        Vector b1 = new Vector(105, 15, 20);
+        Solution solution1 = solver.solve(prepared.withRightPart(b1), EPSILON);
+        Assert.assertNotNull(solution1);
+        Vector answer1 = new Vector( 23687 / 11063d,
+                -1933  / 11063d,
+                461   / 11063d);
+        Assert.assertTrue(solution1.vector.equals(answer1, EPSILON));
+
+        Vector b2 = new Vector(1, 2, 3);
+        Solution solution2 = solver.solve(prepared.withRightPart(b2), EPSILON);
+        Assert.assertTrue(a.multiply(solution2.vector).equals(b2, EPSILON));
+
+        Matrix rightParts = new Matrix(new double[] {105, 1},
+                new double[] {15, 2},
+                new double[] {20, 3});
+        Matrix x = prepared.factorization.solve(rightParts);
+        Assert.assertTrue(a.multiply(x).equals(rightParts, EPSILON));
+    }
+
+    @Test
+    public void testLargeSystem() throws Exception {
+        int n = 250;
+        Random random = new Random(42);
+        double[][] components = new double[n][n];
+        double[] right = new double[n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                components[i][j] = random.nextDouble() - 0.5;
+            }
+            right[i] = i;
+        }
+        Matrix a = new Matrix(components);
+        Vector b = new Vector(right);
+        Solution solution = new GaussSolver().solve(new LinearEquationsSystem(a, b), EPSILON);
+        Assert.assertNotNull(solution);
+        Assert.assertTrue(a.multiply(solution.vector).equals(b, 1e-6));
+    }
+
+    @Test
+    public void testSingular() throws Exception {
+        Matrix a = new Matrix(new double[] {1, 2, 3},
+                new double[] {2, 4, 6},
+                new double[] {1, 1, 1});
+        Assert.assertNull(new GaussSolver().solve(new LinearEquationsSystem(a, new Vector(1, 2, 3)), EPSILON));
+    }
 }
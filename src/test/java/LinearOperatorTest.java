@@ -0,0 +1,105 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Tests the solvers on matrix-free operators.
+ */
+public class LinearOperatorTest {
+
+    public static final double EPSILON = 1e-6;
+
+    /**
+     * Symmetric 1D stencil (-1, 4, -1), never stored as a matrix.
+     */
+    private static class Stencil implements LinearOperator {
+
+        private final int n;
+        private final boolean providesDiagonal;
+
+        Stencil(int n, boolean providesDiagonal) {
+            this.n = n;
+            this.providesDiagonal = providesDiagonal;
+        }
+
+        @Override
+        public int getHeight() {
+            return n;
+        }
+
+        @Override
+        public int getWidth() {
+            return n;
+        }
+
+        @Override
+        public void apply(Vector in, Vector out) {
+            for (int i = 0; i < n; ++i) {
+                double value = 4 * in.get(i);
+                if (i > 0) value -= in.get(i - 1);
+                if (i < n - 1) value -= in.get(i + 1);
+                out.set(i, value);
+            }
+        }
+
+        @Override
+        public boolean hasTranspose() {
+            return true;
+        }
+
+        @Override
+        public void applyTransposed(Vector in, Vector out) {
+            apply(in, out);
+        }
+
+        @Override
+        public boolean hasDiagonal() {
+            return providesDiagonal;
+        }
+
+        @Override
+        public double[] getDiagonal() {
+            double[] result = new double[n];
+            Arrays.fill(result, 4);
+            return result;
+        }
+    }
+
+    private static Vector rightPart(int n) {
+        double[] right = new double[n];
+        for (int i = 0; i < n; ++i) {
+            right[i] = i % 5;
+        }
+        return new Vector(right);
+    }
+
+    @Test
+    public void testMatrixFreeSolvers() {
+        Stencil a = new Stencil(10000, true);
+        Vector b = rightPart(a.getHeight());
+        LinearEquationsSystem system = new LinearEquationsSystem(a, b);
+        Solver[] solvers = {new JacobiSolver(0.9, 10000), new GradientSolver(10000),
+                new ConjugateGradientSolver(10000)};
+        for (Solver solver : solvers) {
+            Solution solution = solver.solve(system, EPSILON);
+            Assert.assertNotNull(solution);
+            Assert.assertTrue(a.multiply(solution.vector).equals(b, EPSILON * 10));
+        }
+    }
+
+    @Test
+    public void testToDense() {
+        Stencil a = new Stencil(3, true);
+        Assert.assertEquals(a.toDense(), new Matrix(new double[]{4, -1, 0},
+                new double[]{-1, 4, -1},
+                new double[]{0, -1, 4}));
+        Assert.assertEquals(a.toDense().multiplyTransposed(new Vector(1, 2, 3)), new Vector(2, 4, 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testJacobiNeedsDiagonal() {
+        Stencil a = new Stencil(10, false);
+        new JacobiSolver(0.9, 100).solve(new LinearEquationsSystem(a, rightPart(10)), EPSILON);
+    }
+}
@@ -0,0 +1,179 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Tests Matrix Market files and the number tokenizer.
+ */
+public class MatrixMarketTest {
+
+    private static String write(LinearOperator a) throws IOException {
+        StringWriter result = new StringWriter();
+        MatrixMarket.write(result, a);
+        return result.toString();
+    }
+
+    @Test
+    public void testCoordinate() throws IOException {
+        LinearOperator a = MatrixMarket.read(new StringReader(
+                "%%MatrixMarket matrix coordinate real general\n" +
+                "% a comment\n" +
+                "%\n" +
+                "3 4 4\n" +
+                "1 1 1.5\n" +
+                "3 4 -2e-1\n" +
+                "2 2 3\n" +
+                "1 1 0.5\n"));
+        Assert.assertTrue(a instanceof SparseMatrix);
+        Assert.assertEquals(new Matrix(new double[]{2, 0, 0, 0}, new double[]{0, 3, 0, 0},
+                new double[]{0, 0, 0, -0.2}), a.toDense());
+
+        a = MatrixMarket.read(new StringReader(
+                "%%MatrixMarket matrix coordinate pattern symmetric\n3 3 3\n1 1\n2 1\n3 2\n"));
+        Assert.assertEquals(new Matrix(new double[]{1, 1, 0}, new double[]{1, 0, 1}, new double[]{0, 1, 0}),
+                a.toDense());
+
+        a = MatrixMarket.read(new StringReader(
+                "%%MatrixMarket matrix coordinate integer skew-symmetric\n2 2 1\n2 1 5\n"));
+        Assert.assertEquals(new Matrix(new double[]{0, -5}, new double[]{5, 0}), a.toDense());
+    }
+
+    @Test
+    public void testArray() throws IOException {
+        LinearOperator a = MatrixMarket.read(new StringReader(
+                "%%MatrixMarket matrix array real general\n2 3\n1\n4\n2\n5\n3\n6\n"));
+        Assert.assertTrue(a instanceof Matrix);
+        Assert.assertEquals(new Matrix(new double[]{1, 2, 3}, new double[]{4, 5, 6}), a);
+
+        a = MatrixMarket.read(new StringReader(
+                "%%MatrixMarket matrix array real symmetric\n2 2\n1\n2\n3\n"));
+        Assert.assertEquals(new Matrix(new double[]{1, 2}, new double[]{2, 3}), a);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Random random = new Random(3);
+        double[][] components = new double[9][7];
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(40, 30);
+        for (int i = 0; i < components.length; ++i) {
+            for (int j = 0; j < components[i].length; ++j) {
+                components[i][j] = random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+            }
+        }
+        for (int k = 0; k < 100; ++k) {
+            builder.add(random.nextInt(40), random.nextInt(30), random.nextDouble());
+        }
+        Matrix dense = new Matrix(components);
+        Assert.assertEquals(dense, MatrixMarket.read(new StringReader(write(dense))));
+        Matrix view = dense.subMatrix(1, 2, 5, 4);
+        Assert.assertEquals(view, MatrixMarket.readMatrix(new StringReader(write(view))));
+
+        SparseMatrix sparse = builder.build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatrixMarket.write(out, sparse);
+        LinearOperator read = MatrixMarket.read(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertTrue(read instanceof SparseMatrix);
+        Assert.assertEquals(sparse.getNonZeros(), ((SparseMatrix) read).getNonZeros());
+        Assert.assertEquals(sparse.toDense(), read.toDense());
+
+        StringWriter vector = new StringWriter();
+        MatrixMarket.write(vector, new Vector(1, 2.5, -3));
+        Assert.assertEquals(new Matrix(new double[]{1}, new double[]{2.5}, new double[]{-3}),
+                MatrixMarket.read(new StringReader(vector.toString())));
+        Assert.assertTrue(new String(out.toByteArray(), StandardCharsets.UTF_8).startsWith(MatrixMarket.BANNER));
+    }
+
+    @Test
+    public void testMalformed() {
+        String[] files = {
+                "3 3\n1 2 3\n",
+                "%%MatrixMarket matrix array complex general\n1 1\n1 0\n",
+                "%%MatrixMarket matrix coordinate real general\n2 2 1\n3 1 1\n",
+                "%%MatrixMarket matrix coordinate real general\n2 2 2\n1 1 1\n",
+                "%%MatrixMarket matrix array real general\n1 1\nx\n",
+                "%%MatrixMarket matrix array real symmetric\n2 3\n1\n2\n3\n",
+        };
+        for (String file : files) {
+            try {
+                MatrixMarket.read(new StringReader(file));
+                Assert.fail(file);
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testTokenizer() throws IOException {
+        Random random = new Random(7);
+        String[] tokens = new String[100000];
+        StringBuilder text = new StringBuilder();
+        for (int k = 0; k < tokens.length; ++k) {
+            switch (k % 4) {
+                case 0:
+                    tokens[k] = Double.toString(Double.longBitsToDouble(random.nextLong()));
+                    break;
+                case 1:
+                    tokens[k] = Double.toString(random.nextDouble());
+                    break;
+                case 2:
+                    tokens[k] = String.format("%.17e", random.nextGaussian() * Math.pow(10, random.nextInt(600) - 300));
+                    break;
+                default:
+                    tokens[k] = Long.toUnsignedString(random.nextLong() >>> random.nextInt(64)) + "e"
+                            + (random.nextInt(700) - 350);
+            }
+            text.append(tokens[k]).append(k % 3 == 0 ? "\n" : ", ");
+        }
+        String[] special = {"9007199254740993", "2.2250738585072011e-308", "4.9e-324", "1.7976931348623159e308",
+                "1e23", "+.5", "-0", "123456789012345678901234567890", "NaN", "-Infinity", "2.5E+3"};
+        for (String s : special) {
+            text.append(s).append(' ');
+        }
+        NumberTokenizer tokenizer = new NumberTokenizer(new StringReader(text.toString()));
+        for (String s : tokens) {
+            Assert.assertEquals(s, Double.parseDouble(s), tokenizer.nextDouble(), 0);
+            if (tokenizer.peek() == ',') {
+                tokenizer.skip();
+            }
+        }
+        for (String s : special) {
+            Assert.assertEquals(s, Double.doubleToLongBits(Double.parseDouble(s)),
+                    Double.doubleToLongBits(tokenizer.nextDouble()));
+        }
+        Assert.assertEquals(-1, tokenizer.peek());
+
+        tokenizer = new NumberTokenizer(new StringReader(" 12 -7 1.5 "));
+        Assert.assertEquals(12, tokenizer.nextInt());
+        Assert.assertEquals(-7, tokenizer.nextInt());
+        try {
+            tokenizer.nextInt();
+            Assert.fail();
+        } catch (NumberFormatException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testParse() {
+        Assert.assertEquals(new Matrix(new double[]{1, -2.5}, new double[]{3e2, 0.25}),
+                Matrix.parse(" {1, -2.5},{3e2,  0.25} "));
+        Assert.assertEquals(new Matrix(new double[]{7}), Matrix.parse("{7}"));
+        String[] malformed = {"{1, 2}, {3}", "{1, 2", "1, 2", "{1, x}", ""};
+        for (String s : malformed) {
+            try {
+                Matrix.parse(s);
+                Assert.fail(s);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -1,6 +1,9 @@
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
 public class MatrixTest {
 
     @Test
@@ -28,6 +31,50 @@ public class MatrixTest {
         Assert.assertNull(m3.reversed());
     }
 
+    @Test
+    public void testLargeReverse() {
+        int n = 300;
+        double[][] components = new double[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                components[i][j] = i == j ? n : Math.sin(i * n + j);
+            }
+        }
+        Matrix m = new Matrix(components);
+        Matrix r = m.reversed();
+        Assert.assertNotNull(r);
+        Assert.assertTrue(m.multiply(r).equals(Matrix.unit(n), 1e-9));
+
+        LUDecomposition lu = new LUDecomposition(m);
+        Assert.assertEquals(lu.determinant(), m.determinant(), 0);
+        Assert.assertTrue(lu.getL().multiply(lu.getU()).equals(permuteRows(m, lu.getPivots()), 1e-9));
+    }
+
+    @Test
+    public void testParallelMultiply() {
+        int n = 300;
+        double[][] components = new double[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                components[i][j] = i == j ? n : Math.sin(i * n + j);
+            }
+        }
+        Matrix m = new Matrix(components);
+        Vector v = m.getRow(0);
+        ParallelExecution execution = ParallelExecution.withParallelism(4);
+        Assert.assertEquals(m.multiply(v), m.multiply(v, ParallelExecution.of(ForkJoinPool.commonPool(), 7)));
+        Assert.assertEquals(m.multiply(v), m.multiply(v, execution));
+        execution.shutdown();
+    }
+
+    private static Matrix permuteRows(Matrix m, int[] permutation) {
+        double[][] components = new double[m.getHeight()][];
+        for (int i = 0; i < components.length; ++i) {
+            components[i] = m.getRow(permutation[i]).getComponents();
+        }
+        return new Matrix(components);
+    }
+
     @Test
     public void testConditionality() {
         Matrix m1 = new Matrix(new double[]{1, 0.01, 0}, new double[]{0.01, 1, 0.01}, new double[]{0, 0.01, 1});
@@ -40,6 +87,71 @@ public class MatrixTest {
         Assert.assertTrue(m2.conditionality() > 9000); //IT'S OVER NINE THOUSAND!!!
     }
 
+    @Test
+    public void testViews() {
+        Matrix m = new Matrix(new double[]{1, 2, 3}, new double[]{4, 5, 6}, new double[]{7, 8, 9});
+        Assert.assertEquals(m.getRow(1), new Vector(4, 5, 6));
+        Assert.assertEquals(m.getColumn(2), new Vector(3, 6, 9));
+
+        Matrix sub = m.subMatrix(1, 1, 2, 2);
+        Assert.assertEquals(sub, new Matrix(new double[]{5, 6}, new double[]{8, 9}));
+        Assert.assertEquals(sub.getColumn(0), new Vector(5, 8));
+        Assert.assertEquals(sub.transponed(), new Matrix(new double[]{5, 8}, new double[]{6, 9}));
+        Assert.assertEquals(sub.multiply(new Vector(1, 1)), new Vector(11, 17));
+        Assert.assertEquals(sub.copy(), sub);
+    }
+
+    @Test
+    public void testVectorInPlace() {
+        Matrix m = new Matrix(new double[]{1, 2, 3}, new double[]{4, 5, 6}, new double[]{7, 8, 9});
+        Vector column = m.getColumn(1);
+        Assert.assertEquals(new Vector(2, 5, 8).subtract(new Vector(1, 1, 1)), new Vector(1, 4, 7));
+        Assert.assertEquals(column.dot(new Vector(1, 0, 1)), 10, 0);
+        Assert.assertEquals(new Vector(3, 4).norm2(), 5, 0);
+
+        column.axpy(2, new Vector(1, 1, 1)).scaleInPlace(0.5);
+        Assert.assertEquals(m.getColumn(1), new Vector(2, 3.5, 5));
+        Vector target = Vector.zero(3);
+        Assert.assertSame(target, m.getRow(2).copyInto(target));
+        Assert.assertEquals(target, new Vector(7, 5, 9));
+        new Vector(1, 2, 3).copyInto(column);
+        Assert.assertEquals(m.getRow(1), new Vector(4, 2, 6));
+
+        Assert.assertFalse(target.hasNaN());
+        target.set(1, Double.NaN);
+        Assert.assertTrue(target.hasNaN());
+    }
+
+    @Test
+    public void testMultiply() {
+        Random random = new Random(7);
+        double[][] left = new double[67][45];
+        double[][] right = new double[45][71];
+        for (double[] row : left) {
+            for (int j = 0; j < row.length; ++j) row[j] = random.nextDouble();
+        }
+        for (double[] row : right) {
+            for (int j = 0; j < row.length; ++j) row[j] = random.nextDouble();
+        }
+        Matrix a = new Matrix(left);
+        Matrix b = new Matrix(right);
+        double[][] expected = new double[67][71];
+        for (int i = 0; i < 67; ++i) {
+            for (int j = 0; j < 71; ++j) {
+                for (int k = 0; k < 45; ++k) {
+                    expected[i][j] += left[i][k] * right[k][j];
+                }
+            }
+        }
+        Matrix product = new Matrix(expected);
+        Assert.assertTrue(a.multiply(b).equals(product, 1e-9));
+        Assert.assertTrue(a.multiply(b, ParallelExecution.of(ForkJoinPool.commonPool())).equals(product, 1e-9));
+        MatrixMultiplication strassen = new MatrixMultiplication(ParallelExecution.SEQUENTIAL, 8);
+        Assert.assertTrue(strassen.multiply(a, b).equals(product, 1e-9));
+        Assert.assertTrue(strassen.multiply(a.subMatrix(1, 2, 30, 40), b.subMatrix(3, 4, 40, 20))
+                .equals(new Matrix(left).subMatrix(1, 2, 30, 40).multiply(b.subMatrix(3, 4, 40, 20)), 1e-9));
+    }
+
     @Test
     public void testParse() throws Exception {
         Matrix parsed = Matrix.parse("{1, 0, 0}, {0, 1, 0}, {0, 0, 1}");
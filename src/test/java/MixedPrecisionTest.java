@@ -0,0 +1,79 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests the single precision LU decomposition and the refinement of its solutions.
+ */
+public class MixedPrecisionTest {
+
+    private static Matrix random(int n, long seed) {
+        Random random = new Random(seed);
+        double[][] components = new double[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                components[i][j] = random.nextDouble() * 2 - 1;
+            }
+            components[i][i] += n / 4.;
+        }
+        return new Matrix(components);
+    }
+
+    private static Matrix hilbert(int n) {
+        double[][] components = new double[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                components[i][j] = 1. / (i + j + 1);
+            }
+        }
+        return new Matrix(components);
+    }
+
+    @Test
+    public void testDecomposition() {
+        Matrix a = random(100, 1);
+        LUDecomposition expected = new LUDecomposition(a);
+        FloatLUDecomposition lu = new FloatLUDecomposition(a);
+        Assert.assertFalse(lu.isSingular());
+        Assert.assertArrayEquals(expected.getPivots(), lu.getPivots());
+        Assert.assertEquals(expected.determinant(), lu.determinant(), 1e-4 * Math.abs(expected.determinant()));
+        Vector b = new Vector(new Random(2).doubles(100).toArray());
+        Assert.assertTrue(expected.solve(b).equals(lu.solve(b), 1e-5));
+        Assert.assertTrue(new FloatLUDecomposition(Matrix.parse("{1, 2}, {2, 4}")).isSingular());
+        // items beyond the float range
+        Assert.assertTrue(new FloatLUDecomposition(Matrix.parse("{1e300, 0}, {0, 1}")).isSingular());
+    }
+
+    @Test
+    public void testRefinement() {
+        Matrix a = random(200, 3);
+        Vector b = new Vector(new Random(4).doubles(200).toArray());
+        LinearEquationsSystem system = new LinearEquationsSystem(a, b);
+        SolverMetrics metrics = new SolverMetrics();
+        Solution solution = new MixedPrecisionSolver().solve(system, 0, metrics);
+        Vector expected = new LUDecomposition(a).solve(b);
+        Assert.assertTrue(expected.equals(solution.vector, 1e-13));
+        // every step is a residual, no fallback
+        Assert.assertEquals(solution.iterations, metrics.getProducts());
+        Assert.assertTrue(solution.iterations <= 4);
+    }
+
+    @Test
+    public void testFallback() {
+        for (Matrix a : new Matrix[]{hilbert(10), Matrix.parse("{1e300, 1}, {1, 1}")}) {
+            int n = a.getHeight();
+            double[] components = new double[n];
+            components[0] = 1;
+            Vector b = new Vector(components);
+            SolverMetrics metrics = new SolverMetrics();
+            Solution solution = new MixedPrecisionSolver().solve(new LinearEquationsSystem(a, b), 0, metrics);
+            Assert.assertEquals(SolverListener.Outcome.CONVERGED, metrics.getOutcome());
+            Assert.assertEquals(solution.iterations - 1, metrics.getProducts());
+            Vector expected = new LUDecomposition(a).solve(b);
+            Assert.assertEquals(expected, solution.vector);
+        }
+        Assert.assertNull(new MixedPrecisionSolver().solve(new LinearEquationsSystem(
+                Matrix.parse("{1, 2}, {2, 4}"), new Vector(1, 2)), 0));
+    }
+}
@@ -0,0 +1,106 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Tests off-heap matrices and the out-of-core LU decomposition.
+ */
+public class OutOfCoreTest {
+
+    public static final double EPSILON = 1e-9;
+
+    private static Matrix random(int n, long seed) {
+        Random random = new Random(seed);
+        double[][] components = new double[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                components[i][j] = random.nextDouble() * 2 - 1;
+            }
+        }
+        return new Matrix(components);
+    }
+
+    @Test
+    public void testStorage() throws IOException {
+        Matrix m = random(20, 1);
+        OffHeapMatrix a = OffHeapMatrix.of(m);
+        Assert.assertEquals(m, a.toDense());
+        Assert.assertEquals(m.get(3, 7), a.get(3, 7), 0);
+        Vector x = new Vector(new Random(2).doubles(20).toArray());
+        Assert.assertTrue(m.multiply(x).equals(a.multiply(x), EPSILON));
+        Assert.assertTrue(m.multiplyTransposed(x).equals(a.multiplyTransposed(x), EPSILON));
+
+        Path file = Files.createTempFile("offheap", ".bin");
+        try {
+            OffHeapMatrix mapped = OffHeapMatrix.create(file, 20, 20);
+            for (int i = 0; i < 20; ++i) {
+                mapped.writeRow(i, 0, m.data, i * 20, 20);
+            }
+            mapped.set(0, 0, 42);
+            mapped.force();
+            Matrix read = BinaryFormat.readMatrix(file);
+            Assert.assertEquals(42, read.get(0, 0), 0);
+            Assert.assertEquals(m.get(19, 19), read.get(19, 19), 0);
+
+            BinaryFormat.write(file, m);
+            OffHeapMatrix remapped = OffHeapMatrix.map(file);
+            Assert.assertEquals(m, remapped.toDense());
+            OffHeapMatrix copy = remapped.copy();
+            copy.set(1, 1, 0);
+            Assert.assertEquals(m.get(1, 1), remapped.get(1, 1), 0);
+            Assert.assertEquals(0, copy.get(1, 1), 0);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testDecomposition() {
+        for (int n : new int[]{1, 7, 150}) {
+            Matrix m = random(n, n);
+            LUDecomposition expected = new LUDecomposition(m);
+            // a working set this small gives panels of a few columns
+            OutOfCoreLU lu = new OutOfCoreLU(OffHeapMatrix.of(m), 24L * n * 5);
+            Assert.assertEquals(Math.min(n, 5), lu.getPanelWidth());
+            Assert.assertArrayEquals(expected.getPivots(), lu.getPivots());
+            Assert.assertEquals(expected.determinant(), lu.determinant(), EPSILON * Math.abs(expected.determinant()));
+
+            Vector b = new Vector(new Random(n).doubles(n).toArray());
+            Vector x = lu.solve(b);
+            Assert.assertTrue(m.multiply(x).equals(b, 1e-8));
+            Matrix rights = random(n, 3).subMatrix(0, 0, n, Math.min(n, 3));
+            Assert.assertTrue(expected.solve(rights).equals(lu.solve(rights), 1e-8));
+        }
+    }
+
+    @Test
+    public void testGaussSolver() throws IOException {
+        Matrix m = random(60, 5);
+        Vector b = new Vector(new Random(6).doubles(60).toArray());
+        Path file = Files.createTempFile("system", ".bin");
+        try {
+            BinaryFormat.write(file, m);
+            OffHeapMatrix a = OffHeapMatrix.map(file);
+            Solution solution = new GaussSolver().solve(new LinearEquationsSystem(a, b), EPSILON);
+            Assert.assertNotNull(solution);
+            Assert.assertTrue(m.multiply(solution.vector).equals(b, 1e-8));
+            // the matrix is factored in a copy
+            Assert.assertEquals(m, a.toDense());
+        } finally {
+            Files.delete(file);
+        }
+
+        OffHeapMatrix offHeap = OffHeapMatrix.of(m);
+        LinearEquationsSystem prepared = new LinearEquationsSystem(offHeap, b).prepare();
+        Assert.assertTrue(prepared.factorization instanceof OutOfCoreLU);
+        Assert.assertTrue(m.multiply(new GaussSolver().solve(prepared, EPSILON).vector).equals(b, 1e-8));
+        Assert.assertEquals(m, offHeap.toDense());
+
+        OffHeapMatrix singular = OffHeapMatrix.of(Matrix.parse("{1, 2}, {2, 4}"));
+        Assert.assertNull(new GaussSolver().solve(new LinearEquationsSystem(singular, new Vector(1, 2)), EPSILON));
+    }
+}
@@ -19,9 +19,18 @@ public class SolverTest {
     {
         solvers.put("Jacobi method", new JacobiSolver(0.9, ITERATIONS_LIMIT));
         solvers.put("Seidel method", new SeidelSolver(ITERATIONS_LIMIT));
+        solvers.put("Seidel method, multicolor", new SeidelSolver(ITERATIONS_LIMIT, ParallelExecution.common()));
         solvers.put("SOR method", new SorSolver(ITERATIONS_LIMIT));
         solvers.put("Gauss method", new GaussSolver());
         solvers.put("Gradient method", new GradientSolver(ITERATIONS_LIMIT));
+        solvers.put("Conjugate gradient method", new ConjugateGradientSolver(ITERATIONS_LIMIT));
+        solvers.put("Gradient method, ILU(0)", new GradientSolver(ITERATIONS_LIMIT, Ilu0Preconditioner::new));
+        solvers.put("Conjugate gradient method, SSOR", new ConjugateGradientSolver(ITERATIONS_LIMIT,
+                a -> new SsorPreconditioner(a, 1.2)));
+        solvers.put("GMRES(m) method", new GmresSolver(ITERATIONS_LIMIT));
+        solvers.put("BiCGSTAB method", new BiCgStabSolver(ITERATIONS_LIMIT));
+        solvers.put("Automatic choice", new AutoSolver());
+        solvers.put("Mixed precision refinement", new MixedPrecisionSolver());
     }
 
     private void runTest(Matrix a, Vector b, Vector answer) {
@@ -75,6 +84,82 @@ public class SolverTest {
         runTest(a3, b3, answer3);
     }
 
+    @Test
+    public void testMetrics() throws Exception {
+        Matrix a = Matrix.parse("{4, 1, 0}, {1, 4, 1}, {0, 1, 4}");
+        LinearEquationsSystem system = new LinearEquationsSystem(a, new Vector(1, 2, 3));
+        for (String name : solvers.keySet()) {
+            SolverMetrics metrics = new SolverMetrics();
+            Solution solution = solvers.get(name).solve(system, EPSILON, metrics);
+            Assert.assertNotNull(name, solution);
+            Assert.assertEquals(name, SolverListener.Outcome.CONVERGED, metrics.getOutcome());
+            Assert.assertEquals(name, solution.iterations, metrics.getIterations());
+            Assert.assertTrue(name, metrics.getSetupNanos() >= 0 && metrics.getSolveNanos() > 0);
+            if (!(solvers.get(name) instanceof GaussSolver || solvers.get(name) instanceof AutoSolver)) {
+                Assert.assertTrue(name, metrics.getProducts() > 0);
+                double[] norms = metrics.getSampleNorms();
+                Assert.assertTrue(name, norms.length > 0);
+                Assert.assertTrue(name, norms[norms.length - 1] < norms[0] || norms.length == 1);
+            }
+        }
+
+        SolverMetrics sampled = new SolverMetrics(3, 4);
+        new SeidelSolver(ITERATIONS_LIMIT).solve(new LinearEquationsSystem(
+                Matrix.parse("{2.1, 2}, {2, 2.1}"), new Vector(1, 2)), EPSILON, sampled);
+        int[] iterations = sampled.getSampleIterations();
+        Assert.assertEquals(4, iterations.length);
+        Assert.assertEquals(sampled.getIterations() / 3 * 3, iterations[3]);
+        for (int i = 1; i < iterations.length; ++i) {
+            Assert.assertEquals(iterations[i - 1] + 3, iterations[i]);
+        }
+
+        SolverMetrics failed = new SolverMetrics();
+        Assert.assertNull(new JacobiSolver(0.9, 2).solve(system, EPSILON, failed));
+        Assert.assertEquals(SolverListener.Outcome.ITERATIONS_LIMIT, failed.getOutcome());
+        Assert.assertNull(new GaussSolver().solve(new LinearEquationsSystem(
+                Matrix.parse("{1, 2}, {2, 4}"), new Vector(1, 2)), EPSILON, failed));
+        Assert.assertEquals(SolverListener.Outcome.BREAKDOWN, failed.getOutcome());
+        // nearly singular: the same answer with and without a factorization
+        LinearEquationsSystem nearlySingular = new LinearEquationsSystem(
+                Matrix.parse("{1e-20, 0}, {0, 1}"), new Vector(1, 2));
+        Assert.assertNull(new GaussSolver().solve(nearlySingular, EPSILON));
+        Assert.assertNull(new GaussSolver().solve(nearlySingular.prepare(), EPSILON));
+    }
+
+    @Test
+    public void testWarmStart() throws Exception {
+        int n = 30;
+        double[][] components = new double[n][n];
+        double[] b = new double[n];
+        for (int i = 0; i < n; ++i) {
+            components[i][i] = 4;
+            if (i > 0) components[i][i - 1] = -1;
+            if (i < n - 1) components[i][i + 1] = -1;
+            b[i] = i % 5;
+        }
+        Matrix a = new Matrix(components);
+        LinearEquationsSystem first = new LinearEquationsSystem(a, new Vector(b.clone()));
+        b[n / 2] += 1e-3;
+        LinearEquationsSystem next = first.withRightPart(new Vector(b));
+        Vector expected = new GaussSolver().solve(next, EPSILON).vector;
+        for (String name : solvers.keySet()) {
+            Solver solver = solvers.get(name);
+            Solution cold = solver.solve(next, EPSILON);
+            Vector x = Vector.zero(n);
+            Assert.assertSame(name, x, solver.solve(first, x, EPSILON).vector);
+            Solution warm = solver.solve(next, x, EPSILON);
+            Assert.assertSame(name, x, warm.vector);
+            Assert.assertTrue(name, x.equals(expected, EPSILON));
+            Assert.assertTrue(name, warm.iterations <= cold.iterations);
+        }
+        try {
+            new JacobiSolver(0.9, ITERATIONS_LIMIT).solve(first, Vector.zero(n + 1), EPSILON);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
     @Test
     public void testGoodConditionality() throws Exception {
         System.out.println("Testing good conditionality");
@@ -0,0 +1,211 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class SparseMatrixTest {
+
+    public static final double EPSILON = 1e-6;
+
+    @Test
+    public void testFromTriplets() {
+        SparseMatrix m = SparseMatrix.fromTriplets(3, 4,
+                new int[]{2, 0, 1, 0, 2},
+                new int[]{3, 1, 0, 1, 0},
+                new double[]{5, 1, 2, 3, 4});
+        Assert.assertEquals(4, m.getNonZeros());
+        Assert.assertEquals(4, m.get(0, 1), 0);
+        Assert.assertEquals(0, m.get(0, 0), 0);
+        Assert.assertEquals(m.toDense(), new Matrix(new double[]{0, 4, 0, 0},
+                new double[]{2, 0, 0, 0},
+                new double[]{4, 0, 0, 5}));
+        Assert.assertEquals(m.multiply(new Vector(1, 2, 3, 4)), new Vector(8, 2, 24));
+    }
+
+    @Test
+    public void testOf() {
+        Matrix dense = new Matrix(new double[]{4, -1, 0}, new double[]{-1, 4, -1}, new double[]{0, -1, 4});
+        SparseMatrix sparse = SparseMatrix.of(dense);
+        Assert.assertEquals(7, sparse.getNonZeros());
+        Assert.assertEquals(dense, sparse.toDense());
+        Assert.assertArrayEquals(dense.getDiagonal(), sparse.getDiagonal(), 0);
+        Assert.assertEquals(dense.norm(), sparse.norm(), 0);
+    }
+
+    /**
+     * 5-point stencil on a side x side grid with a dominant diagonal.
+     */
+    private static SparseMatrix grid(int side) {
+        return grid(side, 5);
+    }
+
+    /**
+     * 5-point stencil on a side x side grid, the closer diagonal is to 4 the harder it is to solve.
+     */
+    private static SparseMatrix grid(int side, double diagonal) {
+        int n = side * side;
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(n, n);
+        for (int i = 0; i < side; ++i) {
+            for (int j = 0; j < side; ++j) {
+                int row = i * side + j;
+                builder.add(row, row, diagonal);
+                if (i > 0) builder.add(row, row - side, -1);
+                if (i < side - 1) builder.add(row, row + side, -1);
+                if (j > 0) builder.add(row, row - 1, -1);
+                if (j < side - 1) builder.add(row, row + 1, -1);
+            }
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testIterativeSolvers() {
+        SparseMatrix a = grid(100);
+        double[] right = new double[a.getHeight()];
+        for (int i = 0; i < right.length; ++i) {
+            right[i] = i % 7;
+        }
+        Vector b = new Vector(right);
+        LinearEquationsSystem system = new LinearEquationsSystem(a, b);
+        ParallelExecution execution = ParallelExecution.of(ForkJoinPool.commonPool(), 100);
+        Solver[] solvers = {new JacobiSolver(0.9, 10000), new JacobiSolver(0.9, 10000, execution),
+                new SeidelSolver(10000), new SeidelSolver(10000, execution),
+                new SorSolver(10000), new SorSolver(10000, execution),
+                new ConjugateGradientSolver(10000), new GradientSolver(10000)};
+        for (Solver solver : solvers) {
+            Solution solution = solver.solve(system, EPSILON);
+            Assert.assertNotNull(solution);
+            Assert.assertTrue(a.multiply(solution.vector).equals(b, EPSILON * 10));
+        }
+    }
+
+    @Test
+    public void testColoring() {
+        SparseMatrix a = grid(30);
+        MatrixColoring coloring = a.getColoring();
+        Assert.assertEquals(2, coloring.getColors());
+        for (int color = 0; color < coloring.getColors(); ++color) {
+            int[] rows = coloring.getRows(color);
+            for (int i : rows) {
+                for (int j : rows) {
+                    Assert.assertTrue(i == j || a.get(i, j) == 0);
+                }
+            }
+        }
+        Assert.assertEquals(a.getHeight(), coloring.getRows(0).length + coloring.getRows(1).length);
+
+        double[] right = new double[a.getHeight()];
+        for (int i = 0; i < right.length; ++i) {
+            right[i] = i % 5;
+        }
+        LinearEquationsSystem system = new LinearEquationsSystem(a, new Vector(right));
+        ParallelExecution execution = ParallelExecution.of(ForkJoinPool.commonPool(), 16);
+        Solution natural = new SeidelSolver(10000).solve(system, EPSILON);
+        Solution multicolor = new SeidelSolver(10000, execution).solve(system, EPSILON);
+        Assert.assertNotNull(multicolor);
+        Assert.assertTrue(multicolor.vector.equals(natural.vector, EPSILON * 10));
+        Assert.assertTrue(multicolor.iterations <= natural.iterations + 2);
+    }
+
+    @Test
+    public void testSeidelCriteria() {
+        SparseMatrix a = grid(50);
+        double[] right = new double[a.getHeight()];
+        for (int i = 0; i < right.length; ++i) {
+            right[i] = i % 7;
+        }
+        Vector b = new Vector(right);
+        LinearEquationsSystem system = new LinearEquationsSystem(a, b);
+        Solution everySweep = new SeidelSolver(10000).solve(system, EPSILON);
+        Assert.assertTrue(a.multiply(everySweep.vector).subtract(b).norm() <= EPSILON * 0.1);
+
+        Solution everyTenth = new SeidelSolver(10000, null, SeidelSolver.Criterion.RESIDUAL, 10).solve(system, EPSILON);
+        Assert.assertEquals(0, everyTenth.iterations % 10);
+        Assert.assertTrue(everyTenth.iterations >= everySweep.iterations);
+        Assert.assertTrue(everyTenth.iterations < everySweep.iterations + 10);
+
+        Solution relative = new SeidelSolver(10000, null, SeidelSolver.Criterion.RELATIVE_RESIDUAL, 1)
+                .solve(system, EPSILON);
+        Assert.assertTrue(a.multiply(relative.vector).subtract(b).norm() <= EPSILON * b.norm());
+
+        for (SeidelSolver.Criterion criterion : SeidelSolver.Criterion.values()) {
+            Solution solution = new SeidelSolver(10000, ParallelExecution.common(), criterion, 3).solve(system, EPSILON);
+            Assert.assertNotNull(solution);
+            Assert.assertTrue(solution.vector.equals(everySweep.vector, EPSILON * 10));
+        }
+    }
+
+    @Test
+    public void testAdaptiveRelaxation() {
+        SparseMatrix a = grid(40, 4.01);
+        double[] right = new double[a.getHeight()];
+        for (int i = 0; i < right.length; ++i) {
+            right[i] = i % 7;
+        }
+        Vector b = new Vector(right);
+        LinearEquationsSystem system = new LinearEquationsSystem(a, b);
+        Solution seidel = new SeidelSolver(100000).solve(system, EPSILON);
+        SorSolver sorSolver = new SorSolver(100000);
+        for (int attempt = 0; attempt < 2; ++attempt) {
+            Solution sor = sorSolver.solve(system, EPSILON);
+            Assert.assertNotNull(sor);
+            Assert.assertTrue(a.multiply(sor.vector).subtract(b).norm() <= EPSILON * 0.1);
+            Assert.assertTrue(sor.iterations < seidel.iterations / 4);
+        }
+    }
+
+    @Test
+    public void testPreconditioners() {
+        SparseMatrix a = grid(100);
+        double[] right = new double[a.getHeight()];
+        for (int i = 0; i < right.length; ++i) {
+            right[i] = i % 7;
+        }
+        Vector b = new Vector(right);
+        LinearEquationsSystem system = new LinearEquationsSystem(a, b);
+        Solution plain = new ConjugateGradientSolver(10000).solve(system, EPSILON);
+        Assert.assertNotNull(plain);
+        Preconditioner.Factory[] preconditioners = {JacobiPreconditioner::new,
+                SsorPreconditioner::new, Ilu0Preconditioner::new};
+        for (Preconditioner.Factory preconditioner : preconditioners) {
+            Solution solution = new ConjugateGradientSolver(10000, preconditioner).solve(system, EPSILON);
+            Assert.assertNotNull(solution);
+            Assert.assertTrue(a.multiply(solution.vector).equals(b, EPSILON * 10));
+            Assert.assertTrue(solution.iterations <= plain.iterations);
+        }
+        Solution ilu = new ConjugateGradientSolver(10000, Ilu0Preconditioner::new).solve(system, EPSILON);
+        Assert.assertTrue(ilu.iterations < plain.iterations / 2);
+    }
+
+    @Test
+    public void testNonsymmetricSolvers() {
+        // Convection-diffusion stencil: the upwind neighbours weigh more than the downwind ones.
+        int side = 60;
+        int n = side * side;
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(n, n);
+        for (int i = 0; i < side; ++i) {
+            for (int j = 0; j < side; ++j) {
+                int row = i * side + j;
+                builder.add(row, row, 4.5);
+                if (i > 0) builder.add(row, row - side, -1.6);
+                if (i < side - 1) builder.add(row, row + side, -0.4);
+                if (j > 0) builder.add(row, row - 1, -1.5);
+                if (j < side - 1) builder.add(row, row + 1, -0.5);
+            }
+        }
+        SparseMatrix a = builder.build();
+        double[] right = new double[n];
+        for (int i = 0; i < n; ++i) {
+            right[i] = 1 + i % 3;
+        }
+        Vector b = new Vector(right);
+        LinearEquationsSystem system = new LinearEquationsSystem(a, b);
+        Solver[] solvers = {new GmresSolver(10000, 10), new GmresSolver(10000, 10, Ilu0Preconditioner::new),
+                new BiCgStabSolver(10000), new BiCgStabSolver(10000, Ilu0Preconditioner::new)};
+        for (Solver solver : solvers) {
+            Solution solution = solver.solve(system, EPSILON);
+            Assert.assertNotNull(solution);
+            Assert.assertTrue(a.multiply(solution.vector).equals(b, EPSILON * 10));
+        }
+    }
+}